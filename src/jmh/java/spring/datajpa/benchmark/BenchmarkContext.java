@@ -0,0 +1,47 @@
+package spring.datajpa.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import spring.datajpa.DatajpaApplication;
+import spring.datajpa.entity.Member;
+import spring.datajpa.entity.Team;
+import spring.datajpa.repository.MemberRepository;
+import spring.datajpa.repository.TeamJpaRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// 벤치마크용 스프링 컨텍스트. 웹 서버 없이 인메모리 H2 위에 JPA 계층만 띄운다.
+// application.yml 보다 우선하도록 커맨드라인 인자로 설정을 덮어쓴다.
+public class BenchmarkContext {
+
+    public static ConfigurableApplicationContext start(String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                "--datajpa.slow-query.enabled=false",
+                "--datajpa.query-count.enabled=false",
+                "--logging.level.root=warn"));
+        args.addAll(List.of(extraArgs));
+        return new SpringApplicationBuilder(DatajpaApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(new String[0]));
+    }
+
+    // teamCount 개의 팀에 회원을 고르게 나눠 담는다.
+    // 파생 쿼리 비교를 위해 username 은 모두 "member" 로 같고 age 로 구분한다.
+    public static void seed(ConfigurableApplicationContext context, int memberCount, int teamCount) {
+        List<Team> teams = new ArrayList<>();
+        for (int i = 0; i < teamCount; i++) {
+            teams.add(new Team("team" + i));
+        }
+        context.getBean(TeamJpaRepository.class).bulkInsert(teams);
+
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < memberCount; i++) {
+            members.add(new Member("member", i, teams.get(i % teamCount)));
+        }
+        context.getBean(MemberRepository.class).bulkInsert(members);
+    }
+}
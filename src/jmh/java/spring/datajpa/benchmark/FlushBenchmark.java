@@ -0,0 +1,71 @@
+package spring.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import spring.datajpa.entity.Member;
+import spring.datajpa.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 영속성 컨텍스트 크기에 따른 flush 비용. 회원/팀 contextSize 개를 올려두고 한 명만 바꾼 뒤 flush 하는 시간만 잰다.
+// 바이트코드 향상 전후 비교:
+//   ./gradlew jmh -Pjmh.includes=FlushBenchmark            (dirty tracking: 바뀐 엔티티만 본다)
+//   ./gradlew jmh -Pjmh.includes=FlushBenchmark -PnoEnhance (스냅샷 비교: 올라온 엔티티를 모두 비교)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FlushBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    int contextSize;
+
+    ConfigurableApplicationContext context;
+    EntityManagerFactory emf;
+
+    EntityManager em;
+    Member dirty;
+    int age;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        BenchmarkContext.seed(context, contextSize, Math.max(1, contextSize / 10));
+        emf = context.getBean(EntityManagerFactory.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // 호출마다 새 영속성 컨텍스트에 회원 전체(+팀)를 올려두고 한 명만 수정한다. 측정에는 포함되지 않는다.
+    @Setup(Level.Invocation)
+    public void load() {
+        em = emf.createEntityManager();
+        em.getTransaction().begin();
+        List<Member> members = em.createQuery("select m from Member m join fetch m.team", Member.class).getResultList();
+        em.createQuery("select t from Team t", Team.class).getResultList();
+        dirty = members.get(0);
+    }
+
+    @TearDown(Level.Invocation)
+    public void rollback() {
+        em.getTransaction().rollback();
+        em.close();
+    }
+
+    @Benchmark
+    public void flushOneDirty() {
+        dirty.setAge(++age);
+        em.flush();
+    }
+
+    // 바뀐 게 없을 때도 스냅샷 비교 비용은 그대로 든다.
+    @Benchmark
+    public void flushNoneDirty() {
+        em.flush();
+    }
+}
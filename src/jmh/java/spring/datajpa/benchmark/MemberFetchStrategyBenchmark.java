@@ -0,0 +1,97 @@
+package spring.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring.datajpa.dto.MemberDto;
+import spring.datajpa.entity.Member;
+import spring.datajpa.repository.MemberJpaRepository;
+import spring.datajpa.repository.MemberRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 이 프로젝트에 있는 조회 방법별로 "회원 전체 + 팀 이름"을 읽는 비용을 비교한다.
+// Throughput: 초당 처리량, SampleTime: 지연시간 분포(p50/p99), gc 프로파일러: 할당률
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MemberFetchStrategyBenchmark {
+
+    @Param({"100", "1000"})
+    int memberCount;
+
+    @Param({"10"})
+    int teamCount;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    MemberJpaRepository memberJpaRepository;
+    TransactionTemplate readOnlyTx;
+
+    // Team/Member 는 2차 캐시 대상이라 켜 두면 지연 로딩/배치 페치 전략만 두 번째 반복부터 캐시에서 팀을 읽는다.
+    // 모든 전략이 db 에서 읽도록 2차 캐시를 끈다.
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("--spring.jpa.properties.hibernate.cache.use_second_level_cache=false");
+        BenchmarkContext.seed(context, memberCount, teamCount);
+        memberRepository = context.getBean(MemberRepository.class);
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        readOnlyTx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTx.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // 트랜잭션이 끝나면 영속성 컨텍스트가 비워지므로 호출마다 같은 조건에서 측정된다.
+    @Benchmark
+    public void derivedQuery(Blackhole bh) {
+        readOnlyTx.executeWithoutResult(status ->
+                consumeWithTeam(memberRepository.findByUsernameAndAgeGreaterThan("member", -1), bh));
+    }
+
+    @Benchmark
+    public void fetchJoin(Blackhole bh) {
+        readOnlyTx.executeWithoutResult(status ->
+                consumeWithTeam(memberRepository.findMemberFetchJoin(), bh));
+    }
+
+    @Benchmark
+    public void entityGraph(Blackhole bh) {
+        readOnlyTx.executeWithoutResult(status ->
+                consumeWithTeam(memberRepository.findAll(), bh));
+    }
+
+    @Benchmark
+    public void dtoProjection(Blackhole bh) {
+        readOnlyTx.executeWithoutResult(status -> {
+            for (MemberDto dto : memberRepository.findMemberDto()) {
+                bh.consume(dto.getTeamName());
+            }
+        });
+    }
+
+    @Benchmark
+    public void customRepository(Blackhole bh) {
+        readOnlyTx.executeWithoutResult(status ->
+                consumeWithTeam(memberRepository.findMemberCustom(), bh));
+    }
+
+    @Benchmark
+    public void plainJpaRepository(Blackhole bh) {
+        readOnlyTx.executeWithoutResult(status ->
+                consumeWithTeam(memberJpaRepository.findAll(), bh));
+    }
+
+    // 지연 로딩 전략은 팀 이름을 읽는 시점에 추가 쿼리가 나가는 비용까지 포함된다.
+    private void consumeWithTeam(List<Member> members, Blackhole bh) {
+        for (Member member : members) {
+            bh.consume(member.getTeam().getName());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package spring.datajpa.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import spring.datajpa.dto.MemberDto;
+import spring.datajpa.service.CompactPageWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// /members 응답 형식 비교: Page<MemberDto> Jackson 직렬화 vs CompactPageWriter.
+// db 없이 같은 페이지 데이터로 직렬화 비용만 잰다. 응답 크기는 setUp 에서 한 번 출력하고,
+// 요청당 할당량은 gc 프로파일러의 gc.alloc.rate.norm (B/op) 으로 본다.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PageSerializationBenchmark {
+
+    @Param({"20", "100", "1000"})
+    int pageSize;
+
+    ObjectMapper objectMapper;
+    CompactPageWriter compactPageWriter;
+    Pageable pageable;
+    List<MemberDto> content;
+    Page<MemberDto> page;
+    ByteArrayOutputStream out;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        objectMapper = new ObjectMapper();
+        compactPageWriter = new CompactPageWriter(objectMapper);
+        pageable = PageRequest.of(3, pageSize, Sort.by("username"));
+        content = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            content.add(new MemberDto((long) i, "member" + i, "team" + (i % 10)));
+        }
+        page = new PageImpl<>(content, pageable, 100_000);
+        out = new ByteArrayOutputStream(64 * 1024);
+
+        System.out.printf("%n[pageSize=%d] bytes: page=%d, compact=%d%n", pageSize, jacksonPage(), compactPage());
+    }
+
+    @Benchmark
+    public int jacksonPage() throws IOException {
+        out.reset();
+        objectMapper.writeValue(out, page);
+        return out.size();
+    }
+
+    // 컨트롤러에서는 조회 결과 스트림의 iterator 를 넘긴다.
+    @Benchmark
+    public int compactPage() throws IOException {
+        out.reset();
+        compactPageWriter.write(out, pageable, 100_000, content.iterator());
+        return out.size();
+    }
+}
@@ -0,0 +1,72 @@
+package spring.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring.datajpa.entity.Member;
+import spring.datajpa.repository.MemberRepository;
+import spring.datajpa.service.MemberService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 읽기 전용 트랜잭션 효과. 같은 조회를 read-write / readOnly 트랜잭션에서 실행해서 비교한다.
+// - 엔티티 조회 뒤 쿼리를 한 번 더 하면 read-write 는 자동 flush 전에 올라온 엔티티를 모두 스냅샷과 비교한다.
+// - readOnly 는 스냅샷을 만들지 않고(FlushMode.MANUAL, read-only 세션) 비교도 하지 않는다.
+// 요청당 메모리는 gc 프로파일러의 gc.alloc.rate.norm (B/op), 지연시간은 SampleTime 의 p50/p99 로 본다.
+// memberServicePage 는 /members 가 실제로 쓰는 경로(MemberService.findPage)
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReadOnlyTransactionBenchmark {
+
+    @Param({"100", "1000"})
+    int memberCount;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    MemberService memberService;
+    TransactionTemplate readWriteTx;
+    TransactionTemplate readOnlyTx;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        BenchmarkContext.seed(context, memberCount, 10);
+        memberRepository = context.getBean(MemberRepository.class);
+        memberService = context.getBean(MemberService.class);
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        readWriteTx = new TransactionTemplate(transactionManager);
+        readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long entitiesReadWrite(Blackhole bh) {
+        return readWriteTx.execute(status -> loadEntitiesThenCount(bh));
+    }
+
+    @Benchmark
+    public long entitiesReadOnly(Blackhole bh) {
+        return readOnlyTx.execute(status -> loadEntitiesThenCount(bh));
+    }
+
+    @Benchmark
+    public void memberServicePage(Blackhole bh) {
+        bh.consume(memberService.findPage(PageRequest.of(0, 20)));
+    }
+
+    private long loadEntitiesThenCount(Blackhole bh) {
+        List<Member> members = memberRepository.findMemberFetchJoin();
+        bh.consume(members);
+        return memberRepository.count();
+    }
+}
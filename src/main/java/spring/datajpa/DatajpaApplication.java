@@ -6,11 +6,13 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import java.util.Optional;
 import java.util.UUID;
 
 @EnableJpaAuditing
+@EnableScheduling // TeamStatsService 재계산
 @SpringBootApplication
 // @EnableJpaRepositories(basePackages = "spring.datajpa.repository") : 이렇게 잡아줘야하지만 스프링 부터에서 생략 가
 public class DatajpaApplication {
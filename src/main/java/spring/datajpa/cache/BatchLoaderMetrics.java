@@ -0,0 +1,61 @@
+package spring.datajpa.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// MemberBatchLoader 요청 묶음 효과 확인용 카운터
+public class BatchLoaderMetrics {
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedKeys = new LongAdder();
+    private final LongAdder bypassed = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    void recordRequest() {
+        requests.increment();
+    }
+
+    void recordBatch(int keys) {
+        batches.increment();
+        batchedKeys.add(keys);
+    }
+
+    void recordBypass() {
+        bypassed.increment();
+    }
+
+    void recordTimeout() {
+        timeouts.increment();
+    }
+
+    // 묶음으로 들어온 조회 요청 수 (같은 id 중복 포함)
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    // 실제로 나간 in 쿼리 수
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    // in 쿼리에 들어간 서로 다른 id 수
+    public long getBatchedKeys() {
+        return batchedKeys.sum();
+    }
+
+    // 트랜잭션 안에서 호출되어 묶지 않고 바로 조회한 수
+    public long getBypassed() {
+        return bypassed.sum();
+    }
+
+    // timeout 안에 결과를 받지 못한 요청 수
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    // 쿼리 하나가 처리한 평균 요청 수. 1 이면 묶인 게 없다.
+    public double getCoalescingRatio() {
+        long batchCount = getBatches();
+        return batchCount == 0 ? 0.0 : (double) getRequests() / batchCount;
+    }
+}
@@ -0,0 +1,30 @@
+package spring.datajpa.cache;
+
+import lombok.Getter;
+
+// 2차 캐시 리전 하나의 통계
+@Getter
+public class CacheRegionStats {
+
+    private final String region;
+    private final long hitCount;
+    private final long missCount;
+    private final long putCount;
+    private final long evictionCount;
+    private final long elementCount;
+
+    public CacheRegionStats(String region, long hitCount, long missCount, long putCount,
+                            long evictionCount, long elementCount) {
+        this.region = region;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.putCount = putCount;
+        this.evictionCount = evictionCount;
+        this.elementCount = elementCount;
+    }
+
+    public double getHitRatio() {
+        long total = hitCount + missCount;
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+}
@@ -0,0 +1,181 @@
+package spring.datajpa.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import spring.datajpa.dto.MemberDto;
+import spring.datajpa.repository.MemberRepository;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// DataLoader 방식의 회원 단건 조회. 동시에 들어온 id 조회를 window 동안(또는 max-batch-size 가 찰 때까지) 모아서
+// where member_id in (...) 쿼리 한 번으로 읽고, 결과를 각 요청에 나눠준다. 같은 id 는 한 번만 조회한다.
+//
+// 묶은 쿼리는 별도 스레드/트랜잭션에서 실행되므로 호출한 쪽에 트랜잭션이 있으면(아직 커밋 안 된 데이터가 보여야 하므로) 묶지 않고 바로 조회한다.
+// 묶어서 조회한 쿼리는 요청 스레드의 쿼리 카운트(QueryCounter)에 잡히지 않는다.
+// 요청 스레드는 결과를 timeout 까지만 기다린다. 조회가 실패하거나 종료 중이라 작업이 거절되면 기다리던 요청 모두 예외로 끝난다.
+@Slf4j
+@Component
+public class MemberBatchLoader {
+
+    private final MemberRepository memberRepository;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final long timeoutMillis;
+    private final BatchLoaderMetrics metrics = new BatchLoaderMetrics();
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(daemon("member-batch-timer"));
+    private final ExecutorService dispatcher = Executors.newFixedThreadPool(2, daemon("member-batch-dispatch"));
+
+    private final Object lock = new Object();
+    private Map<Long, CompletableFuture<Optional<MemberDto>>> pending = new HashMap<>(); // lock 으로 보호
+
+    public MemberBatchLoader(MemberRepository memberRepository,
+                             @Value("${datajpa.member-batch.enabled:true}") boolean enabled,
+                             @Value("${datajpa.member-batch.window:2ms}") Duration window,
+                             @Value("${datajpa.member-batch.max-batch-size:100}") int maxBatchSize,
+                             @Value("${datajpa.member-batch.timeout:5s}") Duration timeout) {
+        this.memberRepository = memberRepository;
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.timeoutMillis = timeout.toMillis();
+    }
+
+    public Optional<MemberDto> load(Long id) {
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()) {
+            metrics.recordBypass();
+            return memberRepository.findMemberDtoById(id);
+        }
+        try {
+            return loadAsync(id).orTimeout(timeoutMillis, TimeUnit.MILLISECONDS).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                metrics.recordTimeout();
+                throw new IllegalStateException("회원 묶음 조회가 " + timeoutMillis + "ms 안에 끝나지 않았습니다. id=" + id, e.getCause());
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public CompletableFuture<Optional<MemberDto>> loadAsync(Long id) {
+        metrics.recordRequest();
+        Map<Long, CompletableFuture<Optional<MemberDto>>> full = null;
+        Map<Long, CompletableFuture<Optional<MemberDto>>> rejected = null;
+        RejectedExecutionException rejectedBy = null;
+        CompletableFuture<Optional<MemberDto>> future;
+        synchronized (lock) {
+            boolean first = pending.isEmpty();
+            future = pending.computeIfAbsent(id, key -> new CompletableFuture<>());
+            if (pending.size() >= maxBatchSize) {
+                full = pending;
+                pending = new HashMap<>();
+            } else if (first) {
+                Map<Long, CompletableFuture<Optional<MemberDto>>> batch = pending;
+                try {
+                    timer.schedule(() -> dispatchIfCurrent(batch), windowNanos, TimeUnit.NANOSECONDS);
+                } catch (RejectedExecutionException e) {
+                    rejected = batch;
+                    rejectedBy = e;
+                    pending = new HashMap<>();
+                }
+            }
+        }
+        if (full != null) {
+            submit(full);
+        }
+        if (rejected != null) {
+            fail(rejected, rejectedBy);
+        }
+        return future;
+    }
+
+    public BatchLoaderMetrics getMetrics() {
+        return metrics;
+    }
+
+    // window 가 끝났을 때 그 묶음이 아직 대기 중이면(max 로 먼저 나가지 않았으면) 보낸다.
+    private void dispatchIfCurrent(Map<Long, CompletableFuture<Optional<MemberDto>>> batch) {
+        synchronized (lock) {
+            if (pending != batch) {
+                return;
+            }
+            pending = new HashMap<>();
+        }
+        submit(batch);
+    }
+
+    // 종료 중이라 작업이 거절되면 기다리는 요청이 영원히 남지 않게 바로 실패시킨다.
+    private void submit(Map<Long, CompletableFuture<Optional<MemberDto>>> batch) {
+        try {
+            dispatcher.execute(() -> dispatch(batch));
+        } catch (RejectedExecutionException e) {
+            fail(batch, e);
+        }
+    }
+
+    private void dispatch(Map<Long, CompletableFuture<Optional<MemberDto>>> batch) {
+        metrics.recordBatch(batch.size());
+        try {
+            List<MemberDto> found = memberRepository.findMemberDtoByIds(batch.keySet());
+            Map<Long, MemberDto> byId = new HashMap<>();
+            for (MemberDto dto : found) {
+                byId.put(dto.getId(), dto);
+            }
+            batch.forEach((id, future) -> future.complete(Optional.ofNullable(byId.get(id))));
+        } catch (Throwable e) {
+            // Error 도 잡아서 기다리는 요청을 끝낸다. (그대로 두면 요청 스레드가 timeout 까지 멈춘다)
+            fail(batch, e);
+            if (e instanceof Error) {
+                throw (Error) e;
+            }
+        }
+    }
+
+    private void fail(Map<Long, CompletableFuture<Optional<MemberDto>>> batch, Throwable e) {
+        log.warn("member batch load failed: {} ids", batch.size(), e);
+        batch.values().forEach(future -> future.completeExceptionally(e));
+    }
+
+    // 아직 보내지 않은 묶음은 timer 가 멈추면 보낼 곳이 없으므로 실패시킨다.
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+        dispatcher.shutdown();
+        Map<Long, CompletableFuture<Optional<MemberDto>>> batch;
+        synchronized (lock) {
+            batch = pending;
+            pending = new HashMap<>();
+        }
+        if (!batch.isEmpty()) {
+            fail(batch, new IllegalStateException("MemberBatchLoader 가 종료되었습니다."));
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
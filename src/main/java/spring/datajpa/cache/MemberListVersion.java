@@ -0,0 +1,111 @@
+package spring.datajpa.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+import spring.datajpa.entity.Member;
+import spring.datajpa.entity.Team;
+import spring.datajpa.event.MemberBulkUpdatedEvent;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 회원 목록(/members) ETag 용 변경 카운터. 매 요청마다 집계 쿼리(count, max(수정일), sum(version))를 돌리지 않는다.
+// 커밋된 Member/Team insert/update/delete(하이버네이트 post-commit 이벤트)와 벌크 수정/이동 때 올린다.
+//
+// 값은 프로세스 메모리에만 있으므로 시작할 때 만든 epoch 를 붙여서 재시작 전에 받은 ETag 와 겹치지 않게 한다.
+// 다른 인스턴스에서 커밋된 변경은 보지 못한다. (MemberLookupCache, TeamStatsStore 와 같은 단일 인스턴스 가정)
+// jdbc 로 직접 바꾼 row 도 보지 못한다.
+@Component
+@RequiredArgsConstructor
+public class MemberListVersion implements PostCommitInsertEventListener,
+        PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private final EntityManagerFactory emf;
+    private final String epoch = UUID.randomUUID().toString();
+    private final AtomicLong version = new AtomicLong();
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    // 페이지 단위 ETag: 목록 버전 + 페이지 파라미터.
+    // 페이지 조회보다 먼저 읽어야 한다. (조회 후에 읽으면 그 사이 커밋된 변경이 옛 본문과 같은 ETag 를 갖는다)
+    public String etag(Pageable pageable) {
+        String key = epoch + "|" + version.get() + "|" + pageable;
+        return "members-" + DigestUtils.md5DigestAsHex(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        changed(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        changed(event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        changed(event.getEntity());
+    }
+
+    // 벌크 수정은 끝나자마자 한 번, 커밋 후에 한 번 더 올린다. (그 사이 옛 데이터로 받은 ETag 가 남지 않게)
+    @EventListener
+    public void onBulkUpdated(MemberBulkUpdatedEvent event) {
+        version.incrementAndGet();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void afterBulkUpdated(MemberBulkUpdatedEvent event) {
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        Class<?> type = persister.getMappedClass();
+        return Member.class.isAssignableFrom(type) || Team.class.isAssignableFrom(type);
+    }
+
+    private void changed(Object entity) {
+        if (entity instanceof Member || entity instanceof Team) {
+            version.incrementAndGet();
+        }
+    }
+}
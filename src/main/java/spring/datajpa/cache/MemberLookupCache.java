@@ -0,0 +1,137 @@
+package spring.datajpa.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import spring.datajpa.dto.MemberDto;
+import spring.datajpa.event.MemberBulkUpdatedEvent;
+import spring.datajpa.event.MemberChangedEvent;
+import spring.datajpa.event.TeamChangedEvent;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// 회원 단건 조회(/members/{id}) 앞단 캐시. 엔티티가 아니라 불변에 가까운 dto를 담는다.
+//
+// 무효화: 회원 수정/삭제, 팀 수정/삭제(teamName), 벌크 수정 이벤트를 받으면 지운다.
+// 변경 시점(flush)에 한 번, 커밋 후에 한 번 더 지워서 커밋 전에 옛 값을 읽어간 요청이 다시 채우지 못하게 한다.
+// 또 id 별 무효화 세대(stripe)를 두고, 조회 도중 무효화가 일어났으면 읽은 값을 캐시에 넣지 않는다.
+// 세대 확인과 저장은 같은 키의 compute 안에서 한다. evict 는 세대를 올린 뒤 같은 키를 지우므로 확인과 저장 사이에 끼어들 수 없다.
+// 호출한 쪽 트랜잭션 안에서 읽은 값도 넣지 않는다. 아직 커밋되지 않은 값일 수 있고, 롤백되면 만료될 때까지 남기 때문
+@Component
+public class MemberLookupCache {
+
+    public static final String NAME = "memberLookup";
+    private static final int STRIPES = 1024; // 2의 제곱
+
+    private final MemberBatchLoader loader;
+    private final Cache<Long, MemberDto> cache;
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder staleSkips = new LongAdder();
+
+    public MemberLookupCache(MemberBatchLoader loader,
+                             @Value("${datajpa.member-cache.maximum-size:10000}") long maximumSize,
+                             @Value("${datajpa.member-cache.expire-after-write:60s}") Duration expireAfterWrite) {
+        this.loader = loader;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    public Optional<MemberDto> find(Long id) {
+        MemberDto cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        int stripe = stripe(id);
+        long generation = generations.get(stripe);
+        // 캐시에 없는 id 는 동시에 들어온 다른 조회와 묶어서 읽는다.
+        Optional<MemberDto> loaded = loader.load(id);
+        // 없는 회원은 캐시하지 않는다.
+        if (loaded.isEmpty() || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return loaded;
+        }
+        boolean[] stored = new boolean[1];
+        cache.asMap().compute(id, (key, current) -> {
+            if (generations.get(stripe) != generation) {
+                return current;
+            }
+            stored[0] = true;
+            return loaded.get();
+        });
+        if (stored[0]) {
+            puts.increment();
+        } else {
+            staleSkips.increment();
+        }
+        return loaded;
+    }
+
+    public void evict(Long id) {
+        generations.incrementAndGet(stripe(id));
+        cache.invalidate(id);
+    }
+
+    public void evictAll() {
+        for (int i = 0; i < STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+        cache.invalidateAll();
+    }
+
+    @EventListener
+    public void onMemberChanged(MemberChangedEvent event) {
+        evict(event.getMemberId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void afterMemberChanged(MemberChangedEvent event) {
+        evict(event.getMemberId());
+    }
+
+    @EventListener
+    public void onTeamChanged(TeamChangedEvent event) {
+        evictAll();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void afterTeamChanged(TeamChangedEvent event) {
+        evictAll();
+    }
+
+    @EventListener
+    public void onBulkUpdated(MemberBulkUpdatedEvent event) {
+        evictAll();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void afterBulkUpdated(MemberBulkUpdatedEvent event) {
+        evictAll();
+    }
+
+    public CacheRegionStats stats() {
+        CacheStats stats = cache.stats();
+        return new CacheRegionStats(NAME, stats.hitCount(), stats.missCount(), puts.sum(),
+                stats.evictionCount(), cache.estimatedSize());
+    }
+
+    // 조회 도중 무효화되어 캐시에 넣지 않은 횟수
+    public long getStaleSkipCount() {
+        return staleSkips.sum();
+    }
+
+    private static int stripe(Long id) {
+        return Long.hashCode(id) & (STRIPES - 1);
+    }
+}
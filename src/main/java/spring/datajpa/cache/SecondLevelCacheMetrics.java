@@ -0,0 +1,67 @@
+package spring.datajpa.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.springframework.stereotype.Component;
+import spring.datajpa.entity.Team;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.persistence.EntityManagerFactory;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// 2차 캐시 hit/miss/put 은 하이버네이트 통계(generate_statistics)에서,
+// eviction 은 하이버네이트가 모르기 때문에 ehcache 가 JMX 로 내보내는 JCache 통계에서 읽는다.
+@Component
+@RequiredArgsConstructor
+public class SecondLevelCacheMetrics {
+
+    public static final String TEAM_REGION = Team.class.getName();
+    public static final String TEAM_MEMBERS_REGION = Team.class.getName() + ".members";
+
+    private final EntityManagerFactory emf;
+
+    public List<CacheRegionStats> teamRegions() {
+        return Stream.of(TEAM_REGION, TEAM_MEMBERS_REGION)
+                .map(this::regionStats)
+                .collect(Collectors.toList());
+    }
+
+    public CacheRegionStats regionStats(String region) {
+        CacheRegionStatistics stats;
+        try {
+            stats = emf.unwrap(SessionFactory.class)
+                    .getStatistics()
+                    .getDomainDataRegionStatistics(region);
+        } catch (IllegalArgumentException e) { // 아직 리전이 만들어지지 않은 경우
+            stats = null;
+        }
+        if (stats == null) {
+            return new CacheRegionStats(region, 0, 0, 0, evictionCount(region), 0);
+        }
+        return new CacheRegionStats(region, stats.getHitCount(), stats.getMissCount(), stats.getPutCount(),
+                evictionCount(region), stats.getElementCountInMemory());
+    }
+
+    // 캐시 매니저 이름은 URI 라서 와일드카드로 찾는다. 통계가 꺼져 있으면 0
+    private long evictionCount(String region) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            Set<ObjectName> names = server.queryNames(
+                    new ObjectName("javax.cache:type=CacheStatistics,Cache=" + region + ",*"), null);
+            long evictions = 0;
+            for (ObjectName name : names) {
+                evictions += (Long) server.getAttribute(name, "CacheEvictions");
+            }
+            return evictions;
+        } catch (JMException e) {
+            return 0;
+        }
+    }
+}
@@ -3,24 +3,50 @@ package spring.datajpa.controller;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import spring.datajpa.cache.MemberListVersion;
+import spring.datajpa.cache.MemberLookupCache;
+import spring.datajpa.dto.CursorPage;
+import spring.datajpa.dto.MemberCursor;
 import spring.datajpa.dto.MemberDto;
+import spring.datajpa.dto.UsernameMatch;
 import spring.datajpa.entity.Member;
-import spring.datajpa.repository.MemberRepository;
+import spring.datajpa.search.UsernameSearchService;
+import spring.datajpa.service.MemberExportService;
+import spring.datajpa.service.MemberService;
 
 import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
-    private final MemberRepository memberRepository;
+    // 조회는 서비스의 읽기 전용 트랜잭션을 거친다. (레포지토리 직접 호출 x)
+    private final MemberService memberService;
+    private final MemberExportService memberExportService;
+    private final MemberLookupCache memberLookupCache;
+    private final MemberListVersion memberListVersion;
+    private final UsernameSearchService usernameSearchService;
 
+    // 자주 조회되는 회원은 캐시에서 바로 응답
+    // 조건부 GET: 버전이 같으면 본문 없이 304 (If-None-Match / If-Modified-Since)
     @GetMapping("/members/{id}")
-    public String findMember(@PathVariable("id") Long id){
-        Member member = memberRepository.findById(id).get();
+    public String findMember(@PathVariable("id") Long id, WebRequest request){
+        MemberDto member = memberLookupCache.find(id).orElseThrow();
+        if (notModified(member.getId(), member.getVersion(), member.getLastModifiedDate(), request)) {
+            return null;
+        }
         return member.getUsername();
     }
 
@@ -30,24 +56,75 @@ public class MemberController {
     // 간단할때만 사용할 수 있다.
     // 레포지토리를 사용해서 엔티티를 찾는 것이다.
     // 트랜잭션 범위가 없는 상황에서 조회해서 조회만 하는게 좋다.
+    // -> 컨버터의 findById 는 Member 2차 캐시에서 나오므로 매번 db 를 조회하지 않는다.
     @GetMapping("/members2/{id}")
-    public String findMember2(@PathVariable("id") Member member){
+    public String findMember2(@PathVariable("id") Member member, WebRequest request){
+        if (notModified(member.getId(), member.getVersion(), member.getLastModifiedDate(), request)) {
+            return null;
+        }
         return member.getUsername();
     }
 
     @GetMapping("/members")
-    public Page<MemberDto> list(Pageable pageable){ //page: 결과정보, pageable: 파라미터 정보
-        Page<Member> page = memberRepository.findAll(pageable);
-        Page<MemberDto> map = page.map(MemberDto::new);
-        return map;
+    public Page<MemberDto> list(Pageable pageable, WebRequest request){ //page: 결과정보, pageable: 파라미터 정보
+        // 회원/팀이 그대로면 페이지를 다시 조회/직렬화하지 않고 304. ETag 는 메모리의 목록 버전으로 만든다. (쿼리 없음)
+        if (request.checkNotModified(memberListVersion.etag(pageable))) {
+            return null;
+        }
+        return memberService.findPage(pageable);
+    }
+
+    // 같은 목록을 compact 형식으로: /members?format=compact&page=0&size=20
+    // Page 직렬화 대신 조회 결과를 바로 JsonGenerator 로 쓴다. (CompactPageWriter)
+    @GetMapping(value = "/members", params = "format=compact")
+    public void listCompact(Pageable pageable, WebRequest request, HttpServletResponse response) throws IOException {
+        if (request.checkNotModified(memberListVersion.etag(pageable) + "-compact")) {
+            return;
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        memberExportService.writeCompactPage(pageable, response.getOutputStream());
+    }
+
+    // 키셋 페이징: /members?after= (빈 값이면 첫 페이지), 응답의 nextCursor를 다음 요청의 after로 넘긴다.
+    // 깊은 페이지에서도 앞의 row를 읽고 버리지 않는다.
+    @GetMapping(value = "/members", params = "after")
+    public CursorPage<MemberDto> listAfter(@RequestParam("after") String after,
+                                           @RequestParam(value = "size", defaultValue = "20") int size){
+        return memberService.findAfter(MemberCursor.decode(after), size);
+    }
+
+    // username 자동완성: /members/search?prefix=user&limit=10
+    @GetMapping("/members/search")
+    public List<UsernameMatch> search(@RequestParam("prefix") String prefix,
+                                      @RequestParam(value = "limit", defaultValue = "10") int limit){
+        return usernameSearchService.searchByPrefix(prefix, limit);
+    }
+
+    // 전체 회원 내보내기. 응답을 한 번에 만들지 않고 NDJSON으로 흘려보낸다.
+    @GetMapping("/members/export")
+    public void export(HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        memberExportService.exportNdjson(response.getOutputStream());
+    }
+
+    // ETag 는 회원 버전, Last-Modified 는 수정일. 둘 다 캐시된 dto/엔티티에 있으므로 따로 조회하지 않는다.
+    // (캐시는 회원이 바뀌면 비워지므로 버전도 같이 새로 읽힌다)
+    private boolean notModified(Long id, Long version, LocalDateTime lastModifiedDate, WebRequest request) {
+        long lastModified = lastModifiedDate == null ? -1
+                : lastModifiedDate.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return request.checkNotModified("member-" + id + "-v" + version, lastModified);
     }
 
     //@PostConstruct // 스프링 앱이 올라올 때 실행됨
     public void init(){
-        memberRepository.save(new Member("userA"));
+        List<Member> members = new ArrayList<>();
+        members.add(new Member("userA"));
         for (int i = 0; i < 100; i++) {
-            memberRepository.save(new Member("user" + i, i));
+            members.add(new Member("user" + i, i));
         }
+        memberService.join(members);
     }
 
 
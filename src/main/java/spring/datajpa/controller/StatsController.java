@@ -0,0 +1,61 @@
+package spring.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import spring.datajpa.cache.BatchLoaderMetrics;
+import spring.datajpa.cache.CacheRegionStats;
+import spring.datajpa.cache.MemberBatchLoader;
+import spring.datajpa.cache.MemberLookupCache;
+import spring.datajpa.cache.SecondLevelCacheMetrics;
+import spring.datajpa.retry.RetryMetrics;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// 운영 중 캐시 효과를 확인하기 위한 통계 조회
+@RestController
+@RequiredArgsConstructor
+public class StatsController {
+
+    private final SecondLevelCacheMetrics secondLevelCacheMetrics;
+    private final RetryMetrics retryMetrics;
+    private final MemberLookupCache memberLookupCache;
+    private final MemberBatchLoader memberBatchLoader;
+    private final EntityManagerFactory emf;
+
+    @GetMapping("/stats/cache/team")
+    public List<CacheRegionStats> teamCache(){
+        return secondLevelCacheMetrics.teamRegions();
+    }
+
+    @GetMapping("/stats/cache/member")
+    public CacheRegionStats memberCache(){
+        return memberLookupCache.stats();
+    }
+
+    // 캐시 miss 조회가 in 쿼리로 얼마나 묶이는지 (coalescingRatio)
+    @GetMapping("/stats/member-batch")
+    public BatchLoaderMetrics memberBatch(){
+        return memberBatchLoader.getMetrics();
+    }
+
+    // 쿼리 실행계획 캐시. in 절 패딩 후 miss 가 늘지 않아야 한다.
+    @GetMapping("/stats/query-plan")
+    public Map<String, Long> queryPlan(){
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        Map<String, Long> result = new LinkedHashMap<>();
+        result.put("hitCount", statistics.getQueryPlanCacheHitCount());
+        result.put("missCount", statistics.getQueryPlanCacheMissCount());
+        return result;
+    }
+
+    @GetMapping("/stats/retry")
+    public RetryMetrics retry(){
+        return retryMetrics;
+    }
+}
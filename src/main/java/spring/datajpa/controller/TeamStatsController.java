@@ -0,0 +1,26 @@
+package spring.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import spring.datajpa.dto.TeamStatsDto;
+import spring.datajpa.stats.TeamStatsService;
+
+// 대시보드용 팀 통계. 집계 쿼리 없이 메모리의 증분 통계를 돌려준다.
+@RestController
+@RequiredArgsConstructor
+public class TeamStatsController {
+
+    private final TeamStatsService teamStatsService;
+
+    @GetMapping("/teams/{id}/stats")
+    public TeamStatsDto teamStats(@PathVariable("id") Long id){
+        return teamStatsService.teamStats(id);
+    }
+
+    @GetMapping("/teams/stats")
+    public TeamStatsDto totalStats(){
+        return teamStatsService.totalStats();
+    }
+}
@@ -0,0 +1,74 @@
+package spring.datajpa.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+// datajpa.datasource.replica.url 이 설정된 경우에만 읽기/쓰기 분리를 켠다.
+// primary 는 spring.datasource.* 설정을 그대로 쓴다.
+// 두 커넥션 풀은 빈으로 노출하지 않는다. (DataSource 빈이 여러 개면 datasource-proxy 가 각각 감싸서 sql 이 두 번 잡히고, 주입도 모호해진다)
+@Configuration
+@ConditionalOnProperty(prefix = "datajpa.datasource.replica", name = "url")
+public class ReplicationDataSourceConfig {
+
+    private HikariDataSource primary;
+    private HikariDataSource replica;
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties,
+                                 @Value("${datajpa.datasource.replica.url}") String replicaUrl,
+                                 @Value("${datajpa.datasource.replica.username:${spring.datasource.username:}}") String replicaUsername,
+                                 @Value("${datajpa.datasource.replica.password:${spring.datasource.password:}}") String replicaPassword,
+                                 @Value("${datajpa.datasource.replica.max-lag:0ms}") Duration maxLag) {
+        primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+
+        replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(replicaUrl)
+                .username(replicaUsername)
+                .password(replicaPassword)
+                .build();
+        replica.setPoolName("replica");
+        replica.setReadOnly(true);
+
+        ReplicationRoutingDataSource routing = new ReplicationRoutingDataSource(maxLag);
+        routing.setTargetDataSources(Map.of(
+                ReplicationRoutingDataSource.PRIMARY, primary,
+                ReplicationRoutingDataSource.REPLICA, replica));
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    // 기본 설정(DELAYED_ACQUISITION_AND_HOLD)은 OSIV 세션이 첫 트랜잭션의 커넥션을 요청 끝까지 잡고 있어서
+    // 읽기 트랜잭션 뒤의 쓰기 트랜잭션이 replica 커넥션을 재사용할 수 있다. 트랜잭션마다 반납하게 한다.
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionAfterTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                "DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION");
+    }
+
+    @PreDestroy
+    public void close() {
+        if (replica != null) {
+            replica.close();
+        }
+        if (primary != null) {
+            primary.close();
+        }
+    }
+}
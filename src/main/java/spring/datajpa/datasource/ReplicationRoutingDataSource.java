@@ -0,0 +1,52 @@
+package spring.datajpa.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+// @Transactional(readOnly = true) 작업은 replica 로, 나머지는 primary 로 보낸다.
+// 커넥션을 얻는 시점에 트랜잭션의 readOnly 여부를 봐야 하므로 LazyConnectionDataSourceProxy 로 감싸서 쓴다.
+//
+// replica 는 primary 보다 늦게 반영될 수 있다. maxLag 를 주면 마지막 쓰기 후 그 시간 동안은
+// 읽기도 primary 로 보내서 방금 쓴 데이터를 못 읽는 일을 줄인다.
+//
+// lastWriteNanos 는 사용자/세션별이 아니라 이 인스턴스 전체에 하나다. 누가 쓰든 maxLag 동안은 모든 읽기가 primary 로 간다.
+// 요청마다 세션을 추적하지 않아도 되는 대신, 쓰기가 maxLag 보다 자주 들어오면 replica 는 거의 쓰이지 않는다.
+// 다른 인스턴스에서 쓴 데이터는 보장하지 않는다.
+// 복제 지연은 커밋부터 시작하므로 쓰기 트랜잭션이 끝날 때 한 번 더 기록한다.
+public class ReplicationRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    private final long maxLagNanos;
+    private volatile long lastWriteNanos = System.nanoTime() - Long.MAX_VALUE / 2;
+
+    public ReplicationRoutingDataSource(Duration maxLag) {
+        this.maxLagNanos = maxLag.toNanos();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                lastWriteNanos = System.nanoTime();
+                if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public void afterCompletion(int status) {
+                            lastWriteNanos = System.nanoTime();
+                        }
+                    });
+                }
+            }
+            return PRIMARY;
+        }
+        if (maxLagNanos > 0 && System.nanoTime() - lastWriteNanos < maxLagNanos) {
+            return PRIMARY;
+        }
+        return REPLICA;
+    }
+}
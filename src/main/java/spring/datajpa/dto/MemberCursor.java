@@ -0,0 +1,51 @@
+package spring.datajpa.dto;
+
+import lombok.Getter;
+import spring.datajpa.entity.Member;
+import spring.datajpa.exception.InvalidRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// 키셋(seek) 페이징용 커서. (username, member_id) 순서로 정렬했을 때 마지막으로 본 위치를 담는다.
+// 클라이언트에는 내부 구조를 숨기기 위해 base64 문자열로만 내려준다.
+@Getter
+public class MemberCursor {
+
+    private final String username;
+    private final Long id;
+
+    public MemberCursor(String username, Long id) {
+        this.username = username;
+        this.id = id;
+    }
+
+    public static MemberCursor of(Member member) {
+        return new MemberCursor(member.getUsername(), member.getId());
+    }
+
+    // id를 앞에 두고 첫 번째 ':' 로 구분한다. username에 ':'가 들어가도 안전하다.
+    // username 이 null 이면 ':' 없이 id 만 쓴다. ("null" 문자열이나 빈 문자열과 구분)
+    public String encode() {
+        String raw = username == null ? String.valueOf(id) : id + ":" + username;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // 빈 문자열이면 첫 페이지(null)로 본다.
+    public static MemberCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int idx = raw.indexOf(':');
+            if (idx < 0) {
+                return new MemberCursor(null, Long.valueOf(raw));
+            }
+            return new MemberCursor(raw.substring(idx + 1), Long.valueOf(raw.substring(0, idx)));
+        } catch (IllegalArgumentException e) { // base64, 숫자 형식 오류
+            throw new InvalidRequestException("잘못된 커서입니다: " + cursor, e);
+        }
+    }
+}
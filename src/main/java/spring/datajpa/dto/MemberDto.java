@@ -1,8 +1,11 @@
 package spring.datajpa.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import spring.datajpa.entity.Member;
 
+import java.time.LocalDateTime;
+
 @Data
 public class MemberDto {
 
@@ -10,15 +13,29 @@ public class MemberDto {
     private String username;
     private String teamName;
 
+    // 단건 조회 캐시(MemberLookupCache)의 조건부 GET 용. 응답 본문에는 넣지 않는다.
+    @JsonIgnore
+    private Long version;
+    @JsonIgnore
+    private LocalDateTime lastModifiedDate;
+
     public MemberDto(Long id, String username, String teamName) {
         this.id = id;
         this.username = username;
         this.teamName = teamName;
     }
 
+    public MemberDto(Long id, String username, String teamName, Long version, LocalDateTime lastModifiedDate) {
+        this(id, username, teamName);
+        this.version = version;
+        this.lastModifiedDate = lastModifiedDate;
+    }
+
     // dto에서는 엔티티 참조 가능
+    // team 이 지연 로딩 프록시면 여기서 초기화되므로 트랜잭션 안에서 만들어야 한다. (open-in-view 꺼짐)
     public MemberDto(Member member) {
         this.id = member.getId();
         this.username = member.getUsername();
+        this.teamName = member.getTeam() == null ? null : member.getTeam().getName();
     }
 }
@@ -0,0 +1,26 @@
+package spring.datajpa.dto;
+
+import lombok.Data;
+
+// 팀별 회원 통계. teamId 가 null 이면 팀이 없는 회원들, 전체 통계일 때도 null
+@Data
+public class TeamStatsDto {
+
+    private Long teamId;
+    private long memberCount;
+    private long ageSum;
+    private Integer ageMin; // 회원이 없으면 null
+    private Integer ageMax;
+
+    public TeamStatsDto(Long teamId, Long memberCount, Long ageSum, Integer ageMin, Integer ageMax) {
+        this.teamId = teamId;
+        this.memberCount = memberCount == null ? 0 : memberCount;
+        this.ageSum = ageSum == null ? 0 : ageSum;
+        this.ageMin = ageMin;
+        this.ageMax = ageMax;
+    }
+
+    public double getAgeAverage() {
+        return memberCount == 0 ? 0.0 : (double) ageSum / memberCount;
+    }
+}
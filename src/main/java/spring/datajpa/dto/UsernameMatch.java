@@ -0,0 +1,16 @@
+package spring.datajpa.dto;
+
+import lombok.Data;
+
+// username 자동완성 결과
+@Data
+public class UsernameMatch {
+
+    private Long id;
+    private String username;
+
+    public UsernameMatch(Long id, String username) {
+        this.id = id;
+        this.username = username;
+    }
+}
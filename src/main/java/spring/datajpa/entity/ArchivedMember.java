@@ -0,0 +1,33 @@
+package spring.datajpa.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+// 오래 수정되지 않은 회원의 보관 테이블 (MemberArchiveService 가 member 에서 옮긴다).
+// Member 와 같은 id 를 그대로 쓰고, team 은 연관관계 없이 id 만 남긴다. 읽기 전용
+@Entity
+@Table(name = "member_archive", indexes = {
+        @Index(name = "idx_member_archive_username_id", columnList = "username, member_id")
+})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString(of = {"id", "username", "age"})
+public class ArchivedMember extends BaseEntity {
+
+    @Id
+    @Column(name = "member_id")
+    private Long id;
+    private String username;
+    private int age;
+    private Long version;
+
+    @Column(name = "team_id")
+    private Long teamId;
+
+    private LocalDateTime archivedDate;
+}
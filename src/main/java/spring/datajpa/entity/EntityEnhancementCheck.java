@@ -0,0 +1,38 @@
+package spring.datajpa.entity;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.PersistentAttributeInterceptable;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.metamodel.EntityType;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// 엔티티가 빌드 시 바이트코드 향상(build.gradle 의 hibernate.enhance)을 거쳤는지 시작할 때 확인한다.
+// 양방향 연관관계(Member.team -> Team.members)를 맞추는 코드가 향상에만 있으므로,
+// 향상 없이 컴파일된 클래스(IDE 자체 빌드, -PnoEnhance)로 뜨면 조용히 다르게 동작하지 않고 바로 실패한다.
+// 비교 측정(-PnoEnhance jmh)처럼 일부러 끈 경우에는 datajpa.entity.require-enhancement=false
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "datajpa.entity.require-enhancement", havingValue = "true", matchIfMissing = true)
+public class EntityEnhancementCheck {
+
+    private final EntityManagerFactory emf;
+
+    @PostConstruct
+    public void verify() {
+        List<String> notEnhanced = emf.getMetamodel().getEntities().stream()
+                .map(EntityType::getJavaType)
+                .filter(type -> !PersistentAttributeInterceptable.class.isAssignableFrom(type))
+                .map(Class::getName)
+                .sorted()
+                .collect(Collectors.toList());
+        if (!notEnhanced.isEmpty()) {
+            throw new IllegalStateException("바이트코드 향상이 적용되지 않은 엔티티가 있습니다: " + notEnhanced
+                    + ". gradle 로 빌드하세요. (의도한 경우 datajpa.entity.require-enhancement=false)");
+        }
+    }
+}
@@ -1,22 +1,42 @@
 package spring.datajpa.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import spring.datajpa.event.EntityChangeListener;
 
 import javax.persistence.*;
 
 @Entity
+@EntityListeners(EntityChangeListener.class) // 수정/삭제 시 캐시 무효화 이벤트 발행
+// findById(도메인 클래스 컨버터 포함)용 2차 캐시. 팀 이름까지 담는 조회는 MemberLookupCache(dto) 를 쓴다.
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(indexes = {
+        // 키셋 페이징 (username, id) 정렬/탐색용
+        @Index(name = "idx_member_username_id", columnList = "username, member_id"),
+        @Index(name = "idx_member_age_username_id", columnList = "age, username, member_id")
+})
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
 public class Member extends BaseEntity{
 
+    // 시퀀스를 allocationSize 만큼 미리 받아두는 pooled 전략.
+    // insert 마다 시퀀스를 조회하지 않아서 JDBC batch가 동작한다.
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 50)
     @Column(name = "member_id")
     private Long id;
     private String username;
     private int age;
 
+    // 낙관적 락. 수정할 때마다 증가하고, 다른 트랜잭션이 먼저 바꿨으면 커밋 시 충돌이 난다.
+    @Version
+    @Setter(AccessLevel.NONE)
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "team_id")
     private Team team;
@@ -31,18 +51,11 @@ public class Member extends BaseEntity{
     }
 
 
-    // 팀 세팅시 연관관계 편의 메소들르 통해 팀 객체쪽도 변경
+    // 팀 객체쪽(team.members)은 빌드 시 바이트코드 향상(association management)이 같이 채워준다.
+    // 손으로 만든 연관관계 편의 메소드(changeTeam)는 필요 없다. (build.gradle 의 hibernate.enhance)
     public Member(String username, int age, Team team) {
         this.username = username;
         this.age = age;
-        if (team != null) {
-            changeTeam(team);
-        }
-    }
-
-    // 연관관계 편의 메소드
-    private void changeTeam(Team team) {
         this.team = team;
-        team.getMembers().add(this); // team의 컬렉션에 선택된 멤버객체를 add
     }
 }
@@ -1,12 +1,20 @@
 package spring.datajpa.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.OptimisticLock;
+import spring.datajpa.event.EntityChangeListener;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
+// 조회는 많고 수정은 드물어서 2차 캐시 대상. 수정/삭제 시 하이버네이트가 캐시를 갱신한다.
 @Entity
+@EntityListeners(EntityChangeListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
@@ -14,11 +22,21 @@ import java.util.List;
 public class Team {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq_generator")
+    @SequenceGenerator(name = "team_seq_generator", sequenceName = "team_seq", allocationSize = 50)
     @Column(name = "team_id")
     private Long id;
     private String name;
 
+    @Version
+    @Setter(AccessLevel.NONE)
+    private Long version;
+
+    // 여러 팀의 members 는 IN 쿼리 한 번으로 초기화된다. (application.yml 의 default_batch_fetch_size)
+    // 조회한 팀 전체의 members 를 서브쿼리 한 번으로 가져오려면 @Fetch(FetchMode.SUBSELECT)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    // 연관관계 주인이 아닌 컬렉션. 회원이 들어오고 나가도 팀 version 은 올리지 않는다. (같은 팀 동시 가입 충돌 방지)
+    @OptimisticLock(excluded = true)
     @OneToMany(mappedBy = "team")
     List<Member> members = new ArrayList<>();
 
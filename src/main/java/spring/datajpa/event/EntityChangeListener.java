@@ -0,0 +1,27 @@
+package spring.datajpa.event;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import spring.datajpa.entity.Member;
+import spring.datajpa.entity.Team;
+
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+// JPA 엔티티 리스너. 하이버네이트가 스프링 빈 컨테이너로 생성하므로 생성자 주입이 된다.
+// 엔티티 변경을 스프링 이벤트로 바꿔서 캐시 등이 엔티티를 몰라도 되게 한다.
+@RequiredArgsConstructor
+public class EntityChangeListener {
+
+    private final ApplicationEventPublisher publisher;
+
+    @PostUpdate
+    @PostRemove
+    public void changed(Object entity) {
+        if (entity instanceof Member) {
+            publisher.publishEvent(new MemberChangedEvent(((Member) entity).getId()));
+        } else if (entity instanceof Team) {
+            publisher.publishEvent(new TeamChangedEvent(((Team) entity).getId()));
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package spring.datajpa.event;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+// 회원 벌크 수정 메소드가 끝나면 MemberBulkUpdatedEvent 를 발행한다.
+// 예외로 끝나도 발행한다. 청크 수정(bulkAgePlusChunked)은 중간에 실패해도 앞 청크는 이미 커밋되어 있다.
+// MemberRepositoryImpl 은 MemberRepository 프록시를 통해 이미 잡히므로 제외
+// 벌크 메소드 안에서 다시 벌크 메소드를 부르면(default bulkAgePlus(int) -> 프록시의 bulkAgePlus(int, now)) 바깥에서 한 번만 발행한다.
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class MemberBulkUpdateAspect {
+
+    private final ApplicationEventPublisher publisher;
+    private final ThreadLocal<Boolean> inBulkUpdate = new ThreadLocal<>();
+
+    @Around("execution(* spring.datajpa.repository.*.bulkAgePlus*(..))" +
+            " && !within(spring.datajpa.repository.MemberRepositoryImpl)")
+    public Object bulkUpdated(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (inBulkUpdate.get() != null) {
+            return joinPoint.proceed();
+        }
+        inBulkUpdate.set(Boolean.TRUE);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            inBulkUpdate.remove();
+            publisher.publishEvent(new MemberBulkUpdatedEvent(joinPoint.getSignature().getName()));
+        }
+    }
+}
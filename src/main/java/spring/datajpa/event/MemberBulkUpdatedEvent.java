@@ -0,0 +1,23 @@
+package spring.datajpa.event;
+
+import lombok.Getter;
+import lombok.ToString;
+
+// 벌크 쿼리(bulkAgePlus 등)로 회원이 한꺼번에 바뀌었을 때 발행.
+// 벌크 쿼리는 엔티티 이벤트를 거치지 않으므로 어떤 회원이 바뀌었는지 알 수 없다.
+@Getter
+@ToString
+public class MemberBulkUpdatedEvent {
+
+    private final String operation;
+    private final boolean rowsRemoved; // 회원이 테이블에서 빠졌는지 (보관 이동 등). 수정만 했으면 false
+
+    public MemberBulkUpdatedEvent(String operation) {
+        this(operation, false);
+    }
+
+    public MemberBulkUpdatedEvent(String operation, boolean rowsRemoved) {
+        this.operation = operation;
+        this.rowsRemoved = rowsRemoved;
+    }
+}
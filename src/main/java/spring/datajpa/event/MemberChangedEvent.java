@@ -0,0 +1,16 @@
+package spring.datajpa.event;
+
+import lombok.Getter;
+import lombok.ToString;
+
+// 회원 한 명이 수정/삭제되었을 때 발행 (엔티티 변경 감지 기준, flush 시점)
+@Getter
+@ToString
+public class MemberChangedEvent {
+
+    private final Long memberId;
+
+    public MemberChangedEvent(Long memberId) {
+        this.memberId = memberId;
+    }
+}
@@ -0,0 +1,16 @@
+package spring.datajpa.event;
+
+import lombok.Getter;
+import lombok.ToString;
+
+// 팀이 수정/삭제되었을 때 발행
+@Getter
+@ToString
+public class TeamChangedEvent {
+
+    private final Long teamId;
+
+    public TeamChangedEvent(Long teamId) {
+        this.teamId = teamId;
+    }
+}
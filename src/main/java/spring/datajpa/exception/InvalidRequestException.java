@@ -0,0 +1,18 @@
+package spring.datajpa.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// 요청 값(커서, 검색어, 페이지 크기, 없는 회원 id 등)이 잘못된 경우. 컨트롤러 밖으로 나가면 500 이 아니라 400 으로 응답한다.
+// IllegalArgumentException 을 상속해서 서비스/레포지토리를 직접 부르는 쪽에서는 그대로 잡을 수 있다.
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidRequestException extends IllegalArgumentException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+
+    public InvalidRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
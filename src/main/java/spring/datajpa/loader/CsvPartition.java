@@ -0,0 +1,24 @@
+package spring.datajpa.loader;
+
+import lombok.Getter;
+import lombok.ToString;
+
+// 파일의 [start, end) 바이트 구간. 항상 줄 경계에서 시작하고 끝난다.
+@Getter
+@ToString
+class CsvPartition {
+
+    private final int index;
+    private final long start;
+    private final long end;
+
+    CsvPartition(int index, long start, long end) {
+        this.index = index;
+        this.start = start;
+        this.end = end;
+    }
+
+    long size() {
+        return end - start;
+    }
+}
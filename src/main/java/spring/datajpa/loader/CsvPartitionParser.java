@@ -0,0 +1,59 @@
+package spring.datajpa.loader;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// 파티션 하나를 메모리 매핑해서 줄 단위로 파싱한다. 파일 전체를 힙으로 읽지 않는다.
+// 형식: username,age,teamName (따옴표/이스케이프는 지원하지 않는다. 빈 줄은 건너뛴다)
+final class CsvPartitionParser {
+
+    private CsvPartitionParser() {
+    }
+
+    static List<MemberCsvRow> parse(FileChannel channel, CsvPartition partition) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, partition.getStart(), partition.size());
+        List<MemberCsvRow> rows = new ArrayList<>();
+        byte[] line = new byte[256];
+        int length = 0;
+        long lineStart = partition.getStart();
+        while (buffer.hasRemaining()) {
+            byte b = buffer.get();
+            if (b == '\n') {
+                addRow(rows, line, length, partition, lineStart);
+                lineStart = partition.getStart() + buffer.position();
+                length = 0;
+            } else {
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, length * 2);
+                }
+                line[length++] = b;
+            }
+        }
+        addRow(rows, line, length, partition, lineStart); // 마지막 줄에 줄바꿈이 없는 경우
+        return rows;
+    }
+
+    private static void addRow(List<MemberCsvRow> rows, byte[] line, int length, CsvPartition partition, long offset) {
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        if (length == 0) {
+            return;
+        }
+        String[] columns = new String(line, 0, length, StandardCharsets.UTF_8).split(",", -1);
+        if (columns.length < 2 || columns.length > 3) {
+            throw new IllegalArgumentException("잘못된 csv 줄입니다. partition=" + partition.getIndex() + ", offset=" + offset);
+        }
+        try {
+            String teamName = columns.length == 3 && !columns[2].isBlank() ? columns[2].trim() : null;
+            rows.add(new MemberCsvRow(columns[0].trim(), Integer.parseInt(columns[1].trim()), teamName));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("age 가 숫자가 아닙니다. partition=" + partition.getIndex() + ", offset=" + offset, e);
+        }
+    }
+}
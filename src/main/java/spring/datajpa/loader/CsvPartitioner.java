@@ -0,0 +1,50 @@
+package spring.datajpa.loader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+// 파일을 partitionBytes 근처 크기의 구간으로 나눈다. 경계는 다음 줄바꿈 뒤로 밀어서 한 줄이 두 파티션에 걸치지 않게 한다.
+// 같은 파일, 같은 partitionBytes 면 항상 같은 파티션이 나오므로 체크포인트의 파티션 번호로 재시작할 수 있다.
+final class CsvPartitioner {
+
+    private static final int SCAN_BUFFER = 8 * 1024;
+
+    private CsvPartitioner() {
+    }
+
+    // 첫 줄(헤더)은 건너뛴다.
+    static List<CsvPartition> split(FileChannel channel, long partitionBytes) throws IOException {
+        long size = channel.size();
+        List<CsvPartition> partitions = new ArrayList<>();
+        long start = nextLineStart(channel, 0, size);
+        while (start < size) {
+            long end = start + partitionBytes >= size ? size : nextLineStart(channel, start + partitionBytes, size);
+            partitions.add(new CsvPartition(partitions.size(), start, end));
+            start = end;
+        }
+        return partitions;
+    }
+
+    // position 이후 첫 '\n' 다음 위치. 없으면 파일 끝
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER);
+        long pos = position;
+        while (pos < size) {
+            buffer.clear();
+            int read = channel.read(buffer, pos);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += read;
+        }
+        return size;
+    }
+}
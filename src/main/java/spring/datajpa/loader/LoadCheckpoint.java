@@ -0,0 +1,70 @@
+package spring.datajpa.loader;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// 커밋이 끝난 파티션 번호를 한 줄씩 기록하는 파일 (<csv>.checkpoint).
+// 첫 줄에 파일 크기, 수정 시각, 파티션 크기를 적어서, 파일이나 설정이 바뀐 채로 재시작하지 않게 한다.
+// (내용을 해시하지는 않는다. 같은 크기로 덮어쓰고 수정 시각까지 되돌린 파일은 구분하지 못한다)
+// FileChannel 은 쓰는 스레드가 인터럽트되면 채널이 닫혀서 다른 파티션의 기록까지 실패하므로 FileOutputStream 으로 쓴다.
+class LoadCheckpoint implements AutoCloseable {
+
+    private final FileOutputStream out;
+    private final Set<Integer> completed;
+
+    private LoadCheckpoint(FileOutputStream out, Set<Integer> completed) {
+        this.out = out;
+        this.completed = completed;
+    }
+
+    static LoadCheckpoint open(Path csv, long fileSize, long partitionBytes) throws IOException {
+        Path path = csv.resolveSibling(csv.getFileName() + ".checkpoint");
+        String header = "# size=" + fileSize + " modified=" + Files.getLastModifiedTime(csv).toMillis()
+                + " partitionBytes=" + partitionBytes;
+        Set<Integer> completed = new HashSet<>();
+        boolean exists = Files.exists(path);
+        if (exists) {
+            List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+            if (!lines.isEmpty() && !lines.get(0).equals(header)) {
+                throw new IllegalStateException("체크포인트가 현재 파일/설정과 맞지 않습니다: " + path
+                        + " (" + lines.get(0) + "). 처음부터 적재하려면 체크포인트 파일을 지우세요.");
+            }
+            lines.stream().skip(1).filter(line -> !line.isBlank()).map(Integer::valueOf).forEach(completed::add);
+        }
+        LoadCheckpoint checkpoint = new LoadCheckpoint(new FileOutputStream(path.toFile(), true), completed);
+        if (!exists || Files.size(path) == 0) {
+            checkpoint.append(header);
+        }
+        return checkpoint;
+    }
+
+    boolean isCompleted(int partition) {
+        return completed.contains(partition);
+    }
+
+    int completedCount() {
+        return completed.size();
+    }
+
+    // 파티션 트랜잭션이 커밋된 뒤 호출. 디스크까지 내려야 재시작 때 중복 적재가 없다.
+    synchronized void markCompleted(int partition) throws IOException {
+        append(String.valueOf(partition));
+        completed.add(partition);
+    }
+
+    private void append(String line) throws IOException {
+        out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+        out.getFD().sync();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
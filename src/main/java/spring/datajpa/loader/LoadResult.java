@@ -0,0 +1,26 @@
+package spring.datajpa.loader;
+
+import lombok.Getter;
+import lombok.ToString;
+
+// csv 적재 결과
+@Getter
+@ToString
+public class LoadResult {
+
+    private final long rows;              // 이번 실행에서 저장한 row 수
+    private final int partitions;         // 전체 파티션 수
+    private final int skippedPartitions;  // 체크포인트에 있어서 건너뛴 파티션 수
+    private final long elapsedMillis;
+
+    public LoadResult(long rows, int partitions, int skippedPartitions, long elapsedMillis) {
+        this.rows = rows;
+        this.partitions = partitions;
+        this.skippedPartitions = skippedPartitions;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedMillis == 0 ? rows : rows * 1000.0 / elapsedMillis;
+    }
+}
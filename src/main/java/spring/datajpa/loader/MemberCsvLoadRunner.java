@@ -0,0 +1,27 @@
+package spring.datajpa.loader;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Paths;
+
+// 시작할 때 csv 를 적재한다: --datajpa.loader.file=/path/members.csv
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "datajpa.loader.file")
+public class MemberCsvLoadRunner implements ApplicationRunner {
+
+    private final MemberCsvLoader loader;
+
+    @Value("${datajpa.loader.file}")
+    private String file;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        loader.load(Paths.get(file));
+    }
+}
@@ -0,0 +1,178 @@
+package spring.datajpa.loader;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import spring.datajpa.entity.Member;
+import spring.datajpa.entity.Team;
+import spring.datajpa.repository.BatchInserter;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+// 회원 csv(username,age,teamName + 헤더 한 줄) 대량 적재.
+//
+// 파일을 줄 경계 기준 파티션으로 나누고, 파티션마다 스레드 하나가 파싱 -> 팀 id 확인 -> 저장을 한다.
+// 파싱은 메모리 매핑, 저장은 파티션별 트랜잭션 + BatchInserter(JDBC batch) 라서 파티션끼리 서로 기다리지 않는다.
+// 커밋된 파티션은 <csv>.checkpoint 에 남기고, 실패 후 다시 실행하면 그 파티션들은 건너뛴다.
+// 동시 저장 수(parallelism)는 커넥션 풀 크기보다 작게 둔다.
+@Slf4j
+@Component
+public class MemberCsvLoader {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final BatchInserter batchInserter;
+    private final TeamIdCache teamIdCache;
+    private final TransactionTemplate partitionTx;
+    private final long partitionBytes;
+    private final int parallelism;
+
+    public MemberCsvLoader(BatchInserter batchInserter, TeamIdCache teamIdCache,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${datajpa.loader.partition-size:8MB}") DataSize partitionSize,
+                           @Value("${datajpa.loader.parallelism:4}") int parallelism) {
+        if (partitionSize.toBytes() <= 0 || partitionSize.toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("partition-size는 0 보다 크고 2GB 보다 작아야 합니다: " + partitionSize);
+        }
+        this.batchInserter = batchInserter;
+        this.teamIdCache = teamIdCache;
+        this.partitionTx = new TransactionTemplate(transactionManager);
+        this.partitionBytes = partitionSize.toBytes();
+        this.parallelism = parallelism;
+    }
+
+    public LoadResult load(Path csv) {
+        long start = System.nanoTime();
+        // 지난 적재 뒤에 지워진 팀의 id 를 다시 쓰지 않도록 팀 이름 -> id 는 적재 한 번 동안만 기억한다.
+        teamIdCache.clear();
+        try (FileChannel channel = FileChannel.open(csv, StandardOpenOption.READ);
+             LoadCheckpoint checkpoint = LoadCheckpoint.open(csv, channel.size(), partitionBytes)) {
+            List<CsvPartition> partitions = CsvPartitioner.split(channel, partitionBytes);
+            List<CsvPartition> pending = partitions.stream()
+                    .filter(partition -> !checkpoint.isCompleted(partition.getIndex()))
+                    .collect(Collectors.toList());
+            log.info("csv load {}: {} partitions, {} already loaded", csv, partitions.size(), partitions.size() - pending.size());
+
+            LongAdder rows = new LongAdder();
+            runAll(pending, partition -> {
+                long partitionRows = loadPartition(channel, partition);
+                checkpoint.markCompleted(partition.getIndex());
+                rows.add(partitionRows);
+                log.info("partition {} loaded: {} rows, total {} rows ({} rows/s)", partition.getIndex(), partitionRows,
+                        rows.sum(), (long) (rows.sum() * 1e9 / (System.nanoTime() - start)));
+            });
+
+            LoadResult result = new LoadResult(rows.sum(), partitions.size(), partitions.size() - pending.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+            log.info("csv load done {}", result);
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long loadPartition(FileChannel channel, CsvPartition partition) throws IOException {
+        List<MemberCsvRow> rows = CsvPartitionParser.parse(channel, partition);
+        Set<String> teamNames = rows.stream()
+                .map(MemberCsvRow::getTeamName)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, Long> teamIds = teamIdCache.resolve(teamNames);
+
+        Integer inserted = partitionTx.execute(status -> {
+            List<Member> members = new ArrayList<>(rows.size());
+            for (MemberCsvRow row : rows) {
+                Member member = new Member(row.getUsername(), row.getAge());
+                if (row.getTeamName() != null) {
+                    // 팀은 select 없이 id 만 가진 프록시로 건다. (초기화 안 된 프록시라 association management 도 team.members 를 건드리지 않는다)
+                    member.setTeam(em.getReference(Team.class, teamIds.get(row.getTeamName())));
+                }
+                members.add(member);
+            }
+            return batchInserter.insert(members);
+        });
+        return inserted == null ? 0 : inserted;
+    }
+
+    // 한 파티션이 실패하면 아직 시작하지 않은 파티션은 건너뛰고, 진행 중인 파티션은 끝날 때까지 기다린다.
+    // 인터럽트로 끊으면 커밋까지 끝난 파티션이 체크포인트에 남지 않아서 재실행 때 중복 적재될 수 있다.
+    private void runAll(List<CsvPartition> partitions, PartitionTask task) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, partitions.size())));
+        AtomicBoolean failed = new AtomicBoolean();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (CsvPartition partition : partitions) {
+                futures.add(executor.submit(() -> {
+                    if (failed.get()) {
+                        return null;
+                    }
+                    try {
+                        task.run(partition);
+                    } catch (Throwable e) {
+                        failed.set(true);
+                        throw e;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            failed.set(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("csv 적재가 중단되었습니다. 다시 실행하면 완료된 파티션은 건너뜁니다.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("csv 적재 중 실패했습니다. 다시 실행하면 완료된 파티션은 건너뜁니다.", e.getCause());
+        } finally {
+            executor.shutdown();
+            awaitInFlight(executor);
+        }
+    }
+
+    // 호출한 스레드가 인터럽트되어도 진행 중인 파티션은 기다린다. 인터럽트 상태는 끝난 뒤 되돌린다.
+    private void awaitInFlight(ExecutorService executor) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    break;
+                }
+                log.info("csv load: waiting for in-flight partitions");
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @FunctionalInterface
+    private interface PartitionTask {
+        void run(CsvPartition partition) throws IOException;
+    }
+}
@@ -0,0 +1,18 @@
+package spring.datajpa.loader;
+
+import lombok.Getter;
+
+// csv 한 줄 (username,age,teamName). teamName 이 비어 있으면 null
+@Getter
+class MemberCsvRow {
+
+    private final String username;
+    private final int age;
+    private final String teamName;
+
+    MemberCsvRow(String username, int age, String teamName) {
+        this.username = username;
+        this.age = age;
+        this.teamName = teamName;
+    }
+}
@@ -0,0 +1,81 @@
+package spring.datajpa.loader;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring.datajpa.entity.Team;
+import spring.datajpa.repository.TeamRepository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// csv 의 팀 이름 -> team id. 파티션마다 처음 보는 이름만 한 번에 in 쿼리로 찾고, 없으면 만든다.
+// 회원은 id 만 있으면 되므로(em.getReference) 팀 엔티티는 들고 있지 않는다.
+// MemberCsvLoader 가 적재를 시작할 때마다 비운다.
+@Component
+public class TeamIdCache {
+
+    private final TeamRepository teamRepository;
+    private final TransactionTemplate teamTx;
+    private final Map<String, Long> ids = new ConcurrentHashMap<>();
+
+    public TeamIdCache(TeamRepository teamRepository, PlatformTransactionManager transactionManager) {
+        this.teamRepository = teamRepository;
+        this.teamTx = new TransactionTemplate(transactionManager);
+        // 새로 만든 팀은 회원 파티션보다 먼저 커밋되어야 다른 파티션에서도 보인다.
+        this.teamTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public Map<String, Long> resolve(Collection<String> names) {
+        Map<String, Long> result = new HashMap<>();
+        Set<String> missing = names.stream()
+                .filter(name -> {
+                    Long id = ids.get(name);
+                    if (id != null) {
+                        result.put(name, id);
+                    }
+                    return id == null;
+                })
+                .collect(Collectors.toSet());
+        if (!missing.isEmpty()) {
+            result.putAll(load(missing));
+        }
+        return result;
+    }
+
+    public void clear() {
+        ids.clear();
+    }
+
+    // 여러 파티션이 같은 새 팀을 동시에 만들지 않도록 직렬화한다. (처음 보는 이름일 때만 들어온다)
+    private synchronized Map<String, Long> load(Set<String> names) {
+        return teamTx.execute(status -> {
+            Map<String, Long> loaded = new HashMap<>();
+            for (String name : names) {
+                Long id = ids.get(name);
+                if (id != null) {
+                    loaded.put(name, id);
+                }
+            }
+            List<String> unknown = names.stream().filter(name -> !loaded.containsKey(name)).collect(Collectors.toList());
+            if (!unknown.isEmpty()) {
+                for (Team team : teamRepository.findByNameInOrderByIdAsc(unknown)) {
+                    loaded.putIfAbsent(team.getName(), team.getId());
+                }
+                List<Team> created = unknown.stream()
+                        .filter(name -> !loaded.containsKey(name))
+                        .map(Team::new)
+                        .collect(Collectors.toList());
+                teamRepository.saveAll(created).forEach(team -> loaded.put(team.getName(), team.getId()));
+            }
+            ids.putAll(loaded);
+            return loaded;
+        });
+    }
+}
@@ -0,0 +1,63 @@
+package spring.datajpa.monitoring;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// 한 구간(요청, 레포지토리 메소드, 테스트 블록)에서 실행된 쿼리 수와 JDBC 실행 시간.
+// 한 스레드 안에서만 쓰이므로 동기화하지 않는다.
+public class QueryCount {
+
+    private final QueryCount parent;
+    private long statements;
+    private long jdbcNanos;
+    private final Map<String, Integer> sqlCounts = new LinkedHashMap<>();
+
+    QueryCount(QueryCount parent) {
+        this.parent = parent;
+    }
+
+    QueryCount getParent() {
+        return parent;
+    }
+
+    void recordSql(String sql) {
+        sqlCounts.merge(sql, 1, Integer::sum);
+    }
+
+    void recordExecution(long nanos) {
+        statements++;
+        jdbcNanos += nanos;
+    }
+
+    void merge(QueryCount child) {
+        statements += child.statements;
+        jdbcNanos += child.jdbcNanos;
+        child.sqlCounts.forEach((sql, n) -> sqlCounts.merge(sql, n, Integer::sum));
+    }
+
+    public long getStatements() {
+        return statements;
+    }
+
+    public long getJdbcTimeMillis() {
+        return jdbcNanos / 1_000_000;
+    }
+
+    public Map<String, Integer> getSqlCounts() {
+        return Collections.unmodifiableMap(sqlCounts);
+    }
+
+    // 같은 sql이 threshold 번 이상 반복되면 N+1 을 의심한다.
+    public Map<String, Integer> getRepeatedSql(int threshold) {
+        return sqlCounts.entrySet().stream()
+                .filter(e -> e.getValue() >= threshold)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    @Override
+    public String toString() {
+        return "QueryCount{statements=" + statements + ", jdbcTimeMillis=" + getJdbcTimeMillis() + "}";
+    }
+}
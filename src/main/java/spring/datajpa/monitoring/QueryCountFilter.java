@@ -0,0 +1,51 @@
+package spring.datajpa.monitoring;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+
+// HTTP 요청 하나에서 나간 쿼리 수를 세고, 기준을 넘거나 같은 sql이 반복되면(N+1 의심) 경고 로그를 남긴다.
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "datajpa.query-count", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    @Value("${datajpa.query-count.request-warn-threshold:10}")
+    private int warnThreshold;
+
+    @Value("${datajpa.query-count.repeat-threshold:3}")
+    private int repeatThreshold;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        QueryCount count = QueryCounter.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryCounter.end(count);
+            report(request, count);
+        }
+    }
+
+    private void report(HttpServletRequest request, QueryCount count) {
+        String uri = request.getMethod() + " " + request.getRequestURI();
+        Map<String, Integer> repeated = count.getRepeatedSql(repeatThreshold);
+        if (!repeated.isEmpty()) {
+            log.warn("[N+1 의심] {} {} repeated={}", uri, count, repeated);
+        } else if (count.getStatements() > warnThreshold) {
+            log.warn("[쿼리 과다] {} {}", uri, count);
+        } else {
+            log.debug("{} {}", uri, count);
+        }
+    }
+}
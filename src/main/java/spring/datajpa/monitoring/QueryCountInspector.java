@@ -0,0 +1,17 @@
+package spring.datajpa.monitoring;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// 하이버네이트가 sql을 준비할 때마다 호출된다. sql을 바꾸지 않고 기록만 한다.
+// hibernate.session_factory.statement_inspector 로 등록
+public class QueryCountInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        QueryCount count = QueryCounter.current();
+        if (count != null) {
+            count.recordSql(sql);
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,37 @@
+package spring.datajpa.monitoring;
+
+import org.hibernate.engine.spi.BaseSessionEventListener;
+
+// 세션마다 하나씩 생성되어 JDBC 실행 횟수와 시간을 잰다.
+// hibernate.session.events.auto 로 등록
+public class QueryCountSessionListener extends BaseSessionEventListener {
+
+    private long startNanos;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        startNanos = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        record();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        startNanos = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        record();
+    }
+
+    private void record() {
+        QueryCount count = QueryCounter.current();
+        if (count != null) {
+            count.recordExecution(System.nanoTime() - startNanos);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package spring.datajpa.monitoring;
+
+// 현재 스레드의 쿼리 카운트를 관리한다.
+// begin/end 는 중첩이 가능하고, end 시점에 안쪽 구간의 수치가 바깥 구간에 더해진다.
+// 시작된 구간이 없으면 기록하지 않으므로 평소에는 비용이 거의 없다.
+public final class QueryCounter {
+
+    private static final ThreadLocal<QueryCount> CURRENT = new ThreadLocal<>();
+
+    private QueryCounter() {
+    }
+
+    public static QueryCount begin() {
+        QueryCount count = new QueryCount(CURRENT.get());
+        CURRENT.set(count);
+        return count;
+    }
+
+    public static void end(QueryCount count) {
+        QueryCount parent = count.getParent();
+        if (parent == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(parent);
+            parent.merge(count);
+        }
+    }
+
+    public static QueryCount current() {
+        return CURRENT.get();
+    }
+}
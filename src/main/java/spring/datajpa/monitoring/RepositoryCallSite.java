@@ -0,0 +1,30 @@
+package spring.datajpa.monitoring;
+
+// 지금 실행 중인 레포지토리 메소드 이름 (예: MemberRepository.findAll).
+// RepositoryMetricsAspect 가 설정하고, sql 로그에서 어느 메소드가 낸 쿼리인지 보여주는 데 쓴다.
+public final class RepositoryCallSite {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private RepositoryCallSite() {
+    }
+
+    // 이전 값을 돌려준다. exit 에 그대로 넘겨서 복원
+    static String enter(String method) {
+        String previous = CURRENT.get();
+        CURRENT.set(method);
+        return previous;
+    }
+
+    static void exit(String previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    public static String current() {
+        return CURRENT.get();
+    }
+}
@@ -0,0 +1,101 @@
+package spring.datajpa.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.Entity;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// 레포지토리 메소드별 실행 시간(repository.invocations)과 반환 row 수(repository.rows)를 micrometer 로 기록한다.
+// 실행 중에는 RepositoryCallSite 에 메소드 이름을 남긴다.
+// 백분위(p50/p95/p99)는 application.yml 의 management.metrics.distribution 설정을 따른다.
+// 조회: /actuator/metrics/repository.invocations?tag=repository:MemberRepository&tag=method:findAll
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RepositoryMetricsAspect {
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> rowSummaries = new ConcurrentHashMap<>();
+
+    @Around("target(org.springframework.data.repository.Repository)" +
+            " || @within(org.springframework.stereotype.Repository)")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        String repository = RepositoryQueryCountAspect.repositoryName(joinPoint.getTarget());
+        String method = joinPoint.getSignature().getName();
+        String previousCallSite = RepositoryCallSite.enter(repository + "." + method);
+        long start = System.nanoTime();
+        String outcome = "success";
+        Object result = null;
+        try {
+            result = joinPoint.proceed();
+            return result;
+        } catch (Throwable e) {
+            outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            RepositoryCallSite.exit(previousCallSite);
+            timer(repository, method, outcome).record(elapsed, TimeUnit.NANOSECONDS);
+            long rows = rows(result);
+            if (rows >= 0) {
+                rowSummary(repository, method).record(rows);
+            }
+        }
+    }
+
+    private Timer timer(String repository, String method, String outcome) {
+        return timers.computeIfAbsent(repository + "." + method + ":" + outcome, key ->
+                Timer.builder("repository.invocations")
+                        .description("레포지토리 메소드 실행 시간")
+                        .tag("repository", repository)
+                        .tag("method", method)
+                        .tag("outcome", outcome)
+                        .register(registry));
+    }
+
+    private DistributionSummary rowSummary(String repository, String method) {
+        return rowSummaries.computeIfAbsent(repository + "." + method, key ->
+                DistributionSummary.builder("repository.rows")
+                        .description("레포지토리 메소드가 반환하거나 수정한 row 수")
+                        .baseUnit("rows")
+                        .tag("repository", repository)
+                        .tag("method", method)
+                        .register(registry));
+    }
+
+    // 반환 타입별 row 수. 셀 수 없는 타입(Stream 등)이나 void 는 -1
+    private static long rows(Object result) {
+        if (result == null) {
+            return -1;
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Slice) {
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        if (result instanceof Integer) { // @Modifying 벌크 수정 결과
+            return (Integer) result;
+        }
+        if (result.getClass().isAnnotationPresent(Entity.class)) {
+            return 1;
+        }
+        return -1;
+    }
+}
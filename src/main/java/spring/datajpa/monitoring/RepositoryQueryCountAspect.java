@@ -0,0 +1,55 @@
+package spring.datajpa.monitoring;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+// 레포지토리 메소드 단위로 쿼리 수를 센다.
+// 스프링 데이터 JPA 레포지토리(인터페이스)와 @Repository 가 붙은 순수 JPA 레포지토리 모두 대상
+@Slf4j
+@Aspect
+@Component
+@ConditionalOnProperty(prefix = "datajpa.query-count", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RepositoryQueryCountAspect {
+
+    private static final String REPOSITORY_PACKAGE = "spring.datajpa.repository";
+
+    @Value("${datajpa.query-count.method-warn-threshold:5}")
+    private int warnThreshold;
+
+    @Around("target(org.springframework.data.repository.Repository)" +
+            " || @within(org.springframework.stereotype.Repository)")
+    public Object count(ProceedingJoinPoint joinPoint) throws Throwable {
+        QueryCount count = QueryCounter.begin();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            QueryCounter.end(count);
+            if (count.getStatements() > warnThreshold) {
+                log.warn("[쿼리 과다] {} {}", methodName(joinPoint), count);
+            } else if (log.isDebugEnabled()) {
+                log.debug("{} {}", methodName(joinPoint), count);
+            }
+        }
+    }
+
+    // findById 처럼 상위 인터페이스에 선언된 메소드도 MemberRepository.findById 로 보이게 한다.
+    static String methodName(ProceedingJoinPoint joinPoint) {
+        return repositoryName(joinPoint.getTarget()) + "." + joinPoint.getSignature().getName();
+    }
+
+    static String repositoryName(Object target) {
+        for (Class<?> type : ClassUtils.getAllInterfacesAsSet(target)) {
+            if (type.getPackageName().equals(REPOSITORY_PACKAGE)) {
+                return type.getSimpleName();
+            }
+        }
+        return AopUtils.getTargetClass(target).getSimpleName();
+    }
+}
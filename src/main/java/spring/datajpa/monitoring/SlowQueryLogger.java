@@ -0,0 +1,85 @@
+package spring.datajpa.monitoring;
+
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+// show_sql / p6spy 처럼 모든 sql을 찍지 않고, 느린 sql과 일부 샘플만 남긴다.
+// datasource-proxy 스타터가 QueryExecutionListener 빈을 자동으로 등록한다.
+// 빠른 sql은 시간 비교(와 샘플링 시 난수 하나)만 하고 끝나므로 비용이 거의 없다.
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "datajpa.slow-query", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SlowQueryLogger implements QueryExecutionListener {
+
+    private final long thresholdMillis;
+    private final double sampleRate;
+
+    public SlowQueryLogger(@Value("${datajpa.slow-query.threshold-millis:200}") long thresholdMillis,
+                           @Value("${datajpa.slow-query.sample-rate:0.0}") double sampleRate) {
+        this.thresholdMillis = thresholdMillis;
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long elapsed = execInfo.getElapsedTime();
+        if (elapsed >= thresholdMillis) {
+            log.warn("[느린 쿼리] {}", describe(execInfo, queryInfoList));
+        } else if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            log.info("[샘플 쿼리] {}", describe(execInfo, queryInfoList));
+        }
+    }
+
+    private String describe(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        String caller = RepositoryCallSite.current();
+        return execInfo.getElapsedTime() + "ms"
+                + " caller=" + (caller == null ? "-" : caller)
+                + " rows=" + rows(execInfo.getResult())
+                + (execInfo.isBatch() ? " batch=" + execInfo.getBatchSize() : "")
+                + (execInfo.isSuccess() ? "" : " failed")
+                + " " + queryInfoList.stream().map(SlowQueryLogger::describe).collect(Collectors.joining("; "));
+    }
+
+    private static String describe(QueryInfo queryInfo) {
+        String params = queryInfo.getParametersList().stream()
+                .map(SlowQueryLogger::params)
+                .collect(Collectors.joining(","));
+        return queryInfo.getQuery() + (params.isEmpty() ? "" : " params=" + params);
+    }
+
+    // ParameterSetOperation 의 args 는 [인덱스, 값]
+    private static String params(List<ParameterSetOperation> operations) {
+        return operations.stream()
+                .map(op -> op.getArgs().length > 1 ? String.valueOf(op.getArgs()[1]) : "null")
+                .collect(Collectors.joining(",", "[", "]"));
+    }
+
+    // update/delete 는 반영된 row 수, batch 는 합계. select 는 ResultSet 을 읽기 전이라 알 수 없다.
+    private static String rows(Object result) {
+        if (result instanceof Integer || result instanceof Long) {
+            return String.valueOf(result);
+        }
+        if (result instanceof int[]) {
+            long sum = 0;
+            for (int n : (int[]) result) {
+                sum += n;
+            }
+            return String.valueOf(sum);
+        }
+        return "-";
+    }
+}
@@ -0,0 +1,23 @@
+package spring.datajpa.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import spring.datajpa.dto.MemberDto;
+import spring.datajpa.entity.ArchivedMember;
+
+import java.util.List;
+import java.util.Optional;
+
+// 보관된 회원 조회. MemberRepository 는 보관 테이블을 보지 않으므로, 둘 다 볼 때는 MemberArchiveService 를 쓴다.
+public interface ArchivedMemberRepository extends JpaRepository<ArchivedMember, Long> {
+
+    // 보관 테이블에는 연관관계가 없어서 팀 이름은 id 로 조인한다.
+    @Query("select new spring.datajpa.dto.MemberDto(a.id, a.username, t.name)" +
+            " from ArchivedMember a left join Team t on t.id = a.teamId where a.id = :id")
+    Optional<MemberDto> findMemberDtoById(@Param("id") Long id);
+
+    @Query("select new spring.datajpa.dto.MemberDto(a.id, a.username, t.name)" +
+            " from ArchivedMember a left join Team t on t.id = a.teamId where a.username = :username order by a.id")
+    List<MemberDto> findMemberDtoByUsername(@Param("username") String username);
+}
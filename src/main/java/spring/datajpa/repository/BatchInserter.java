@@ -0,0 +1,38 @@
+package spring.datajpa.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Collection;
+
+// 대량 등록용. persist를 batch_size 만큼 모았다가 flush/clear 한다.
+// flush 시점에 insert가 JDBC batch로 묶여서 나가고, clear로 영속성 컨텍스트가 계속 커지지 않는다.
+// 주의: clear를 하기 때문에 같은 트랜잭션에서 이전에 조회한 엔티티도 준영속 상태가 된다.
+@Component
+public class BatchInserter {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    // flush 주기를 JDBC batch 크기와 맞춘다.
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    @Transactional
+    public int insert(Collection<?> entities) {
+        int count = 0;
+        for (Object entity : entities) {
+            em.persist(entity);
+            if (++count % batchSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+        return count;
+    }
+}
@@ -0,0 +1,46 @@
+package spring.datajpa.repository;
+
+import lombok.Getter;
+
+import java.util.function.Consumer;
+
+// 청크 단위 벌크 수정 옵션
+@Getter
+public class ChunkOptions {
+
+    private final int chunkSize;           // 청크 하나가 다루는 id 범위 크기
+    private long throttleMillis;           // 청크 사이 대기 시간. 다른 쓰기 작업에 숨 돌릴 틈을 준다.
+    private Long resumeFromId;             // 이전 실행의 ChunkProgress.nextFromId 를 넣으면 거기서부터 재시작
+    private Consumer<ChunkProgress> progressListener = progress -> {};
+
+    private ChunkOptions(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize는 1 이상이어야 합니다: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    public static ChunkOptions of(int chunkSize) {
+        return new ChunkOptions(chunkSize);
+    }
+
+    public ChunkOptions throttle(long millis) {
+        this.throttleMillis = millis;
+        return this;
+    }
+
+    public ChunkOptions resumeFrom(Long id) {
+        this.resumeFromId = id;
+        return this;
+    }
+
+    public ChunkOptions onProgress(Consumer<ChunkProgress> listener) {
+        this.progressListener = listener;
+        return this;
+    }
+
+    // 같은 설정에 진행 리스너만 바꾼 새 옵션. 이 옵션은 바꾸지 않는다.
+    public ChunkOptions withProgressListener(Consumer<ChunkProgress> listener) {
+        return of(chunkSize).throttle(throttleMillis).resumeFrom(resumeFromId).onProgress(listener);
+    }
+}
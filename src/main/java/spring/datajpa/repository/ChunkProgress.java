@@ -0,0 +1,28 @@
+package spring.datajpa.repository;
+
+import lombok.Getter;
+import lombok.ToString;
+
+// 청크 하나가 커밋될 때마다 전달되는 진행 상황
+@Getter
+@ToString
+public class ChunkProgress {
+
+    private final long fromId;        // 이번 청크 시작 id (포함)
+    private final long nextFromId;    // 이번 청크 끝 id (미포함). 재시작 시 이 값부터
+    private final long maxId;         // 작업 시작 시점의 마지막 id
+    private final int chunkRows;      // 이번 청크에서 수정된 row 수
+    private final long totalRows;     // 지금까지 수정된 row 수
+
+    public ChunkProgress(long fromId, long nextFromId, long maxId, int chunkRows, long totalRows) {
+        this.fromId = fromId;
+        this.nextFromId = nextFromId;
+        this.maxId = maxId;
+        this.chunkRows = chunkRows;
+        this.totalRows = totalRows;
+    }
+
+    public boolean isDone() {
+        return nextFromId > maxId;
+    }
+}
@@ -0,0 +1,27 @@
+package spring.datajpa.repository;
+
+import lombok.Getter;
+
+import java.util.Map;
+
+// ChunkedUpdateRunner 가 청크마다 실행하는 수정 jpql 하나와 그 문장에만 넣을 파라미터.
+// :fromId, :toId 는 ChunkedUpdateRunner 가 넣으므로 params 에 넣지 않는다.
+@Getter
+public class ChunkStatement {
+
+    private final String jpql;
+    private final Map<String, Object> params;
+
+    private ChunkStatement(String jpql, Map<String, Object> params) {
+        this.jpql = jpql;
+        this.params = params;
+    }
+
+    public static ChunkStatement of(String jpql) {
+        return new ChunkStatement(jpql, Map.of());
+    }
+
+    public static ChunkStatement of(String jpql, Map<String, Object> params) {
+        return new ChunkStatement(jpql, Map.copyOf(params));
+    }
+}
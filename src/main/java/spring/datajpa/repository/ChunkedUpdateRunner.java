@@ -0,0 +1,94 @@
+package spring.datajpa.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.util.List;
+import java.util.Map;
+
+// 벌크 수정을 id 범위로 잘라서 청크마다 짧은 트랜잭션으로 실행한다.
+// 한 번에 전체를 update 하면 끝날 때까지 모든 row 락을 잡고 있기 때문에 동시에 쓰는 작업이 멈춘다.
+//
+// update jpql 에는 :fromId(포함), :toId(미포함) 파라미터가 있어야 한다.
+// 여러 문장(예: insert-select 후 delete)을 넘기면 청크마다 같은 트랜잭션에서 순서대로 실행하고,
+// 마지막 문장의 수정 row 수를 청크 row 수로 센다. 파라미터는 문장(ChunkStatement)마다 따로 넣는다.
+// 청크마다 REQUIRES_NEW 로 커밋하므로 바깥 트랜잭션 안에서 호출하면 바깥의 영속성 컨텍스트는 갱신되지 않는다.
+// 시작 시점의 max id 까지만 처리한다.
+@Slf4j
+@Component
+public class ChunkedUpdateRunner {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final TransactionTemplate chunkTx;
+
+    public ChunkedUpdateRunner(PlatformTransactionManager transactionManager) {
+        this.chunkTx = new TransactionTemplate(transactionManager);
+        this.chunkTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // idRangeJpql: "select min(x.id), max(x.id) from ..." 형태
+    public long run(String idRangeJpql, String updateJpql, Map<String, Object> params, ChunkOptions options) {
+        return run(idRangeJpql, List.of(ChunkStatement.of(updateJpql, params)), options);
+    }
+
+    public long run(String idRangeJpql, List<ChunkStatement> statements, ChunkOptions options) {
+        if (statements.isEmpty()) {
+            throw new IllegalArgumentException("실행할 문장이 없습니다.");
+        }
+        Object[] range = chunkTx.execute(status -> (Object[]) em.createQuery(idRangeJpql).getSingleResult());
+        if (range == null || range[0] == null) {
+            return 0; // 대상 테이블이 비어 있음
+        }
+        long minId = ((Number) range[0]).longValue();
+        long maxId = ((Number) range[1]).longValue();
+        long fromId = options.getResumeFromId() == null ? minId : Math.max(minId, options.getResumeFromId());
+
+        long totalRows = 0;
+        while (fromId <= maxId) {
+            long chunkFrom = fromId;
+            long chunkTo = fromId + options.getChunkSize();
+            Integer updated = chunkTx.execute(status -> {
+                int rows = 0;
+                for (ChunkStatement statement : statements) {
+                    Query query = em.createQuery(statement.getJpql());
+                    statement.getParams().forEach(query::setParameter);
+                    rows = query.setParameter("fromId", chunkFrom)
+                            .setParameter("toId", chunkTo)
+                            .executeUpdate();
+                }
+                return rows;
+            });
+            totalRows += updated;
+
+            ChunkProgress progress = new ChunkProgress(chunkFrom, chunkTo, maxId, updated, totalRows);
+            log.debug("chunked update {}", progress);
+            options.getProgressListener().accept(progress);
+
+            fromId = chunkTo;
+            if (fromId <= maxId) {
+                throttle(options.getThrottleMillis(), fromId);
+            }
+        }
+        return totalRows;
+    }
+
+    private void throttle(long millis, long nextFromId) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("청크 수정이 중단되었습니다. resumeFrom(" + nextFromId + ") 로 재시작할 수 있습니다.", e);
+        }
+    }
+}
@@ -1,25 +1,38 @@
 package spring.datajpa.repository;
 
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 import spring.datajpa.entity.Member;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 // 순수 jpa 레퍼지토리. 데이터 jpa 사용하지 않
 @Repository
+@RequiredArgsConstructor
 public class MemberJpaRepository {
 
     @PersistenceContext
     private EntityManager em;
 
+    private final BatchInserter batchInserter;
+    private final StatelessScanner statelessScanner;
+
     public Member save(Member member) {
         em.persist(member);
         return member;
     }
 
+    // 대량 등록. save를 반복 호출하는 대신 사용
+    public int bulkInsert(Collection<Member> members) {
+        return batchInserter.insert(members);
+    }
+
     public void delete(Member member) {
         em.remove(member);
     }
@@ -28,6 +41,11 @@ public class MemberJpaRepository {
         return em.createQuery("select m from Member m", Member.class).getResultList();
     }
 
+    // findAll 의 배치용 버전. 영속성 컨텍스트 없이 한 줄씩 넘긴다. (member.team 은 id 만 쓸 수 있다)
+    public long scanAll(Consumer<Member> consumer){
+        return statelessScanner.scan("select m from Member m order by m.id", Member.class, consumer);
+    }
+
     // NullPointerException을 방지하기 위한 Optional
     // Null이 될 수 있는 값을 감싸는 wrapper class
     // ofNullable()은 null이 올 수도 있고 아닐 수도 있는 경우에 사용.
@@ -73,9 +91,11 @@ public class MemberJpaRepository {
 
     // 벌크성 수정: 전체 회원의 나이를 하나 증가시키는 예제
     public int bulkAgePlus(int age) {
-        return em.createQuery("update Member m set m.age = m.age + 1" +
+        return em.createQuery("update Member m set m.age = m.age + 1, m.version = m.version + 1," +
+                        " m.lastModifiedDate = :now" +
                         " where m.age >= :age")
                 .setParameter("age", age)
+                .setParameter("now", LocalDateTime.now())
                 .executeUpdate(); // 응답 값의 개수가 나온다
     }
 }
@@ -6,12 +6,17 @@ import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import spring.datajpa.dto.MemberDto;
+import spring.datajpa.dto.TeamStatsDto;
+import spring.datajpa.dto.UsernameMatch;
 import spring.datajpa.entity.Member;
 
 import javax.persistence.LockModeType;
 import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 // 인터페이스고, 구현체가 없다. 내부 함수도 인터페이스만 있는데, 구현체가 없이 어떻게 이 기능이 동작할까?
 
@@ -34,6 +39,48 @@ public interface MemberRepository extends JpaRepository<Member, Long> , MemberRe
             " from Member m join m.team t")
     List<MemberDto> findMemberDto();
 
+    // 단건 dto 조회 (MemberLookupCache 로더). 조건부 GET 용 버전/수정일도 같이 읽는다.
+    @Query("select new spring.datajpa.dto.MemberDto(m.id, m.username, t.name, m.version, m.lastModifiedDate)" +
+            " from Member m left join m.team t where m.id = :id")
+    Optional<MemberDto> findMemberDtoById(@Param("id") Long id);
+
+    @Query("select new spring.datajpa.dto.MemberDto(m.id, m.username, t.name)" +
+            " from Member m left join m.team t where m.username = :username order by m.id")
+    List<MemberDto> findMemberDtoByUsername(@Param("username") String username);
+
+    // 여러 건 dto 조회 (MemberBatchLoader). 없는 id 는 결과에서 빠진다.
+    @Query("select new spring.datajpa.dto.MemberDto(m.id, m.username, t.name, m.version, m.lastModifiedDate)" +
+            " from Member m left join m.team t where m.id in :ids")
+    List<MemberDto> findMemberDtoByIds(@Param("ids") Collection<Long> ids);
+
+    // 페이징 + dto 조회. 엔티티를 만들지 않고 필요한 컬럼만 dto로 받는다.
+    // 카운트 쿼리는 조인 없이 member 만 센다.
+    @Query(value = "select new spring.datajpa.dto.MemberDto(m.id, m.username, t.name)" +
+            " from Member m left join m.team t",
+            countQuery = "select count(m) from Member m")
+    Page<MemberDto> findMemberDtoPage(Pageable pageable);
+
+    // username 접두어 검색. pattern 은 UsernameSearchService 가 '\' 로 이스케이프하고 끝에 % 를 붙여서 넘긴다.
+    // like 'abc%' 는 idx_member_username_id (username, member_id) 로 범위 탐색 + 정렬 없이 상위 K개만 읽는다.
+    @Query("select new spring.datajpa.dto.UsernameMatch(m.id, m.username) from Member m" +
+            " where m.username like :pattern escape '\\' order by m.username, m.id")
+    List<UsernameMatch> findUsernameMatches(@Param("pattern") String pattern, Pageable pageable);
+
+    // 메모리 인덱스(UsernameIndex) 적재용. 호출하는 쪽에서 트랜잭션 안에서 닫아야 한다.
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("select new spring.datajpa.dto.UsernameMatch(m.id, m.username) from Member m")
+    Stream<UsernameMatch> streamUsernames();
+
+    // 팀별 회원 수/나이 합계/최소/최대. 팀이 없는 회원은 teamId 가 null 인 한 줄로 나온다.
+    // TeamStatsService 가 증분 통계를 재계산(보정)할 때만 사용
+    @Query("select new spring.datajpa.dto.TeamStatsDto(t.id, count(m), sum(m.age), min(m.age), max(m.age))" +
+            " from Member m left join m.team t group by t.id")
+    List<TeamStatsDto> findTeamStats();
+
+    @Query("select new spring.datajpa.dto.TeamStatsDto(m.team.id, count(m), sum(m.age), min(m.age), max(m.age))" +
+            " from Member m where m.team.id = :teamId group by m.team.id")
+    Optional<TeamStatsDto> findTeamStats(@Param("teamId") Long teamId);
+
     // 컬렉션 파라미터 바인딩. collection 타입으로 in절 지원
     // in절로 여러개를 조회하고 싶을 때 사용
     // in 절을 깔끔하게 선언할 수 있음
@@ -53,9 +100,16 @@ public interface MemberRepository extends JpaRepository<Member, Long> , MemberRe
 
     // 벌크 처리시 Modifying 어노테이션을 붙여야한다.
     @Modifying(clearAutomatically = true)
-    @Query("update Member m set m.age = m.age + 1" +
+    // 벌크 수정은 @Version 과 수정일을 자동으로 바꾸지 않으므로 직접 바꾼다. (낙관적 락, /members ETag)
+    // 수정일은 auditing 과 같은 애플리케이션 시각. db 의 current_timestamp 는 트랜잭션 시작 시각일 수 있다.
+    @Query("update Member m set m.age = m.age + 1, m.version = m.version + 1," +
+            " m.lastModifiedDate = :now" +
             " where m.age >= :age")
-    int bulkAgePlus(@Param("age") int age);
+    int bulkAgePlus(@Param("age") int age, @Param("now") LocalDateTime now);
+
+    default int bulkAgePlus(int age) {
+        return bulkAgePlus(age, LocalDateTime.now());
+    }
 
     // fetch join을 사용하면 member를 조회할 때 연관 있는 team을 함께 가져온다.
     @Query("select m from Member m left join fetch m.team")
@@ -71,5 +125,9 @@ public interface MemberRepository extends JpaRepository<Member, Long> , MemberRe
 
     @Lock(LockModeType.PESSIMISTIC_WRITE) // jpa가 lock을 지원
     List<Member> findLockByUsername(String username);
+
+    // 비관적 락 대신 @Version 으로 충돌을 검사한다. 락을 잡지 않고, 충돌 시 @RetryOnConflict 로 재시도
+    @Lock(LockModeType.OPTIMISTIC)
+    List<Member> findOptimisticByUsername(String username);
 }
 
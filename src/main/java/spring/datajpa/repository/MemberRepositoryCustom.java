@@ -1,9 +1,39 @@
 package spring.datajpa.repository;
 
+import org.springframework.data.domain.Pageable;
+import spring.datajpa.dto.CursorPage;
+import spring.datajpa.dto.MemberCursor;
+import spring.datajpa.dto.MemberDto;
 import spring.datajpa.entity.Member;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface MemberRepositoryCustom {
     List<Member> findMemberCustom();
+
+    // findMemberCustom 의 배치용 버전. StatelessSession 으로 한 줄씩 읽어 consumer 로 넘기고 row 수를 돌려준다.
+    long scanMemberCustom(Consumer<Member> consumer);
+
+    // findByNames 와 같지만 목록이 크면 in-chunk-size 단위로 나눠서 조회 후 합친다.
+    List<Member> findByNamesChunked(Collection<String> names);
+
+    // 대량 등록. JDBC batch + 주기적인 flush/clear
+    int bulkInsert(Collection<Member> members);
+
+    // bulkAgePlus 의 청크 버전. id 범위마다 별도 트랜잭션으로 커밋한다.
+    long bulkAgePlusChunked(int age, ChunkOptions options);
+
+    // 전체 회원을 DTO로 스트리밍. 트랜잭션 안에서 사용하고 반드시 close 해야 한다.
+    Stream<MemberDto> streamMemberDto();
+
+    // 한 페이지를 DTO 스트림으로 (/members?format=compact). 트랜잭션 안에서 사용하고 close 해야 한다.
+    Stream<MemberDto> streamMemberDtoPage(Pageable pageable);
+
+    // 키셋 페이징: after가 null이면 첫 페이지
+    CursorPage<Member> findMemberKeyset(MemberCursor after, int size);
+
+    CursorPage<Member> findByAgeKeyset(int age, MemberCursor after, int size);
 }
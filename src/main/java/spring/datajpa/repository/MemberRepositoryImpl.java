@@ -1,19 +1,177 @@
 package spring.datajpa.repository;
 
 import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring.datajpa.dto.CursorPage;
+import spring.datajpa.dto.MemberCursor;
+import spring.datajpa.dto.MemberDto;
 import spring.datajpa.entity.Member;
 
 import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @RequiredArgsConstructor
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
     private final EntityManager em;
+    private final BatchInserter batchInserter;
+    private final ChunkedUpdateRunner chunkedUpdateRunner;
+    private final PlatformTransactionManager transactionManager;
+    private final StatelessScanner statelessScanner;
+
+    // 스트리밍 조회 시 JDBC 드라이버가 한 번에 가져올 row 수
+    @Value("${datajpa.export.fetch-size:1000}")
+    private int exportFetchSize;
+
+    @Value("${datajpa.query.in-chunk-size:1000}")
+    private int inChunkSize;
+
+    @Value("${datajpa.query.in-chunk-parallel:false}")
+    private boolean inChunkParallel;
 
     @Override
     public List<Member> findMemberCustom() {
         return em.createQuery("select m from Member m")
                 .getResultList();
     }
+
+    @Override
+    public long scanMemberCustom(Consumer<Member> consumer) {
+        return statelessScanner.scan("select m from Member m order by m.id", Member.class, consumer);
+    }
+
+    // 청크 크기를 고정해 두면 in_clause_parameter_padding 과 합쳐져 sql 종류가 몇 개로 제한된다.
+    // 병렬 조회는 청크마다 별도 읽기 트랜잭션을 쓰므로 결과는 준영속 상태이고,
+    // 호출한 쪽 트랜잭션이 있으면 그 영속성 컨텍스트를 써야 하므로 순차 조회한다.
+    @Override
+    public List<Member> findByNamesChunked(Collection<String> names) {
+        List<String> distinct = names.stream().distinct().collect(Collectors.toList());
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < distinct.size(); i += inChunkSize) {
+            chunks.add(distinct.subList(i, Math.min(i + inChunkSize, distinct.size())));
+        }
+
+        if (inChunkParallel && chunks.size() > 1
+                && !TransactionSynchronizationManager.isActualTransactionActive()) {
+            TransactionTemplate readOnlyTx = new TransactionTemplate(transactionManager);
+            readOnlyTx.setReadOnly(true);
+            return chunks.parallelStream()
+                    .flatMap(chunk -> readOnlyTx.execute(status -> findByNamesIn(chunk)).stream())
+                    .collect(Collectors.toList());
+        }
+        return chunks.stream()
+                .flatMap(chunk -> findByNamesIn(chunk).stream())
+                .collect(Collectors.toList());
+    }
+
+    private List<Member> findByNamesIn(List<String> names) {
+        return em.createQuery("select m from Member m where m.username in :names", Member.class)
+                .setParameter("names", names)
+                .getResultList();
+    }
+
+    @Override
+    public int bulkInsert(Collection<Member> members) {
+        return batchInserter.insert(members);
+    }
+
+    // 트랜잭션을 청크마다 새로 열어야 하므로 이 메소드에는 @Transactional 을 붙이지 않는다.
+    @Override
+    public long bulkAgePlusChunked(int age, ChunkOptions options) {
+        return chunkedUpdateRunner.run(
+                "select min(m.id), max(m.id) from Member m",
+                "update Member m set m.age = m.age + 1, m.version = m.version + 1," +
+                        " m.lastModifiedDate = :now" +
+                        " where m.age >= :age and m.id >= :fromId and m.id < :toId",
+                Map.of("age", age, "now", LocalDateTime.now()),
+                options);
+    }
+
+    // 엔티티가 아니라 DTO로 바로 받기 때문에 영속성 컨텍스트에 아무것도 쌓이지 않는다.
+    // 결과는 ScrollableResults 기반 Stream 으로 fetch size 만큼씩 읽어온다.
+    @Override
+    public Stream<MemberDto> streamMemberDto() {
+        return em.createQuery("select new spring.datajpa.dto.MemberDto(m.id, m.username, t.name)" +
+                        " from Member m left join m.team t order by m.id", MemberDto.class)
+                .setHint(QueryHints.HINT_FETCH_SIZE, exportFetchSize)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultStream();
+    }
+
+    // findMemberDtoPage 의 스트리밍 버전 (카운트 쿼리 없음). 정렬은 spring data 와 같은 방식으로 붙인다.
+    @Override
+    public Stream<MemberDto> streamMemberDtoPage(Pageable pageable) {
+        String jpql = QueryUtils.applySorting("select new spring.datajpa.dto.MemberDto(m.id, m.username, t.name)" +
+                " from Member m left join m.team t", pageable.getSort(), "m");
+        TypedQuery<MemberDto> query = em.createQuery(jpql, MemberDto.class)
+                .setHint(QueryHints.HINT_READONLY, true);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset())
+                    .setMaxResults(pageable.getPageSize());
+        }
+        return query.getResultStream();
+    }
+
+    @Override
+    public CursorPage<Member> findMemberKeyset(MemberCursor after, int size) {
+        return findKeyset(null, after, size);
+    }
+
+    @Override
+    public CursorPage<Member> findByAgeKeyset(int age, MemberCursor after, int size) {
+        return findKeyset(age, after, size);
+    }
+
+    // offset 대신 마지막으로 본 (username, id) 다음부터 읽는다.
+    // 인덱스(username, member_id)를 타고 바로 시작 위치로 가기 때문에 몇 번째 페이지든 비용이 같다.
+    // size + 1개를 읽어서 다음 페이지가 있는지 판단한다.
+    // username 이 null 인 회원은 맨 앞(nulls first, H2 오름차순 기본값과 같아서 인덱스를 그대로 탄다)에 id 순으로 온다.
+    // null 과는 > 비교가 안 되므로 커서가 null 구간에 있으면 "남은 null 구간 + null 이 아닌 전부" 로 이어 읽는다.
+    private CursorPage<Member> findKeyset(Integer age, MemberCursor after, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size는 1 이상이어야 합니다: " + size);
+        }
+        StringBuilder jpql = new StringBuilder("select m from Member m where 1 = 1");
+        if (age != null) {
+            jpql.append(" and m.age = :age");
+        }
+        if (after != null && after.getUsername() == null) {
+            jpql.append(" and (m.username is not null or m.id > :id)");
+        } else if (after != null) {
+            jpql.append(" and (m.username > :username or (m.username = :username and m.id > :id))");
+        }
+        jpql.append(" order by m.username asc nulls first, m.id asc");
+
+        TypedQuery<Member> query = em.createQuery(jpql.toString(), Member.class);
+        if (age != null) {
+            query.setParameter("age", age);
+        }
+        if (after != null) {
+            if (after.getUsername() != null) {
+                query.setParameter("username", after.getUsername());
+            }
+            query.setParameter("id", after.getId());
+        }
+        List<Member> result = query.setMaxResults(size + 1).getResultList();
+
+        if (result.size() <= size) {
+            return new CursorPage<>(result, null);
+        }
+        List<Member> content = result.subList(0, size);
+        return new CursorPage<>(content, MemberCursor.of(content.get(size - 1)).encode());
+    }
 }
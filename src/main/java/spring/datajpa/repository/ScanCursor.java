@@ -0,0 +1,55 @@
+package spring.datajpa.repository;
+
+import org.hibernate.ScrollableResults;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// StatelessScanner 가 연 커서. 한 줄씩 읽고, 다 쓰면 반드시 close 해야 커넥션이 반납된다.
+public class ScanCursor<T> implements Iterator<T>, AutoCloseable {
+
+    private final StatelessSession session;
+    private final Transaction transaction;
+    private final ScrollableResults results;
+    private final Class<T> type;
+    private Boolean hasNext;
+
+    ScanCursor(StatelessSession session, Transaction transaction, ScrollableResults results, Class<T> type) {
+        this.session = session;
+        this.transaction = transaction;
+        this.results = results;
+        this.type = type;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (hasNext == null) {
+            hasNext = results.next();
+        }
+        return hasNext;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        hasNext = null;
+        return type.cast(results.get(0));
+    }
+
+    // 읽기만 했으므로 커밋/롤백 결과는 같다. 커서와 세션을 닫아 커넥션을 돌려준다.
+    @Override
+    public void close() {
+        try {
+            results.close();
+            if (transaction.isActive()) {
+                transaction.commit();
+            }
+        } finally {
+            session.close();
+        }
+    }
+}
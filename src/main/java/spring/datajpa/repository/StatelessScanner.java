@@ -0,0 +1,65 @@
+package spring.datajpa.repository;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.query.Query;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// 읽기 전용 대량 조회(배치 작업용). 하이버네이트 StatelessSession 으로 읽어서
+// 영속성 컨텍스트(1차 캐시)와 스냅샷(변경 감지용 복사본)을 만들지 않는다. 메모리는 fetch size 만큼만 쓴다.
+//
+// 주의
+// - 스프링 트랜잭션과 상관없이 자기 세션/커넥션으로 읽는다. (바깥 트랜잭션에서 flush 전인 변경은 보이지 않는다)
+// - 읽은 엔티티는 처음부터 준영속이라 지연 로딩이 안 된다. 연관 엔티티는 fetch join 으로 같이 읽거나 id 만 쓴다.
+// - 2차 캐시를 거치지 않는다.
+@Component
+public class StatelessScanner {
+
+    private final SessionFactory sessionFactory;
+    private final int fetchSize;
+
+    public StatelessScanner(EntityManagerFactory emf, @Value("${datajpa.scan.fetch-size:1000}") int fetchSize) {
+        this.sessionFactory = emf.unwrap(SessionFactory.class);
+        this.fetchSize = fetchSize;
+    }
+
+    // 한 줄씩 consumer 로 넘기고 읽은 row 수를 돌려준다.
+    public <T> long scan(String jpql, Class<T> type, Map<String, ?> params, Consumer<? super T> consumer) {
+        long count = 0;
+        try (ScanCursor<T> cursor = open(jpql, type, params)) {
+            while (cursor.hasNext()) {
+                consumer.accept(cursor.next());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public <T> long scan(String jpql, Class<T> type, Consumer<? super T> consumer) {
+        return scan(jpql, type, Map.of(), consumer);
+    }
+
+    // iterator 로 직접 읽을 때. try-with-resources 로 닫는다.
+    public <T> ScanCursor<T> open(String jpql, Class<T> type, Map<String, ?> params) {
+        StatelessSession session = sessionFactory.openStatelessSession();
+        try {
+            // 일부 드라이버(postgres 등)는 autocommit 이 꺼져 있어야 fetch size 만큼 나눠서 읽는다.
+            Transaction transaction = session.beginTransaction();
+            Query<T> query = session.createQuery(jpql, type)
+                    .setFetchSize(fetchSize)
+                    .setReadOnly(true);
+            params.forEach(query::setParameter);
+            return new ScanCursor<>(session, transaction, query.scroll(ScrollMode.FORWARD_ONLY), type);
+        } catch (RuntimeException e) {
+            session.close();
+            throw e;
+        }
+    }
+}
@@ -1,24 +1,36 @@
 package spring.datajpa.repository;
 
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 import spring.datajpa.entity.Team;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Repository
+@RequiredArgsConstructor
 public class TeamJpaRepository {
 
     @PersistenceContext
     private EntityManager em;
 
+    private final BatchInserter batchInserter;
+    private final StatelessScanner statelessScanner;
+
     public Team save(Team team){
         em.persist(team);
         return team;
     }
 
+    // 대량 등록
+    public int bulkInsert(Collection<Team> teams) {
+        return batchInserter.insert(teams);
+    }
+
     public void delete(Team team) {
         em.remove(team);
     }
@@ -27,6 +39,11 @@ public class TeamJpaRepository {
         return em.createQuery("select t from Team t", Team.class).getResultList();
     }
 
+    // findAll 의 배치용 버전. 영속성 컨텍스트 없이 한 줄씩 넘긴다. (team.members 는 읽을 수 없다)
+    public long scanAll(Consumer<Team> consumer){
+        return statelessScanner.scan("select t from Team t order by t.id", Team.class, consumer);
+    }
+
     public Optional<Team> findById(Long id) {
         Team team = em.find(Team.class, id);
         return Optional.ofNullable(team);
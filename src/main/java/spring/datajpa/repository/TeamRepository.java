@@ -3,5 +3,11 @@ package spring.datajpa.repository;
 import org.springframework.data.jpa.repository.JpaRepository;
 import spring.datajpa.entity.Team;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface TeamRepository extends JpaRepository<Team, Long> {
+
+    // 이름으로 팀 id 를 찾는다 (MemberCsvLoader 의 팀 캐시). 이름은 유일하지 않으므로 같은 이름이면 id 가 작은 팀을 쓴다.
+    List<Team> findByNameInOrderByIdAsc(Collection<String> names);
 }
@@ -0,0 +1,44 @@
+package spring.datajpa.retry;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// 낙관적 락 충돌률 확인용 카운터
+@Component
+public class RetryMetrics {
+
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+
+    void recordInvocation() {
+        invocations.increment();
+    }
+
+    void recordConflict() {
+        conflicts.increment();
+    }
+
+    void recordExhausted() {
+        exhausted.increment();
+    }
+
+    public long getInvocations() {
+        return invocations.sum();
+    }
+
+    public long getConflicts() {
+        return conflicts.sum();
+    }
+
+    // 재시도를 다 쓰고도 실패한 호출 수
+    public long getExhausted() {
+        return exhausted.sum();
+    }
+
+    public double getConflictRate() {
+        long total = getInvocations();
+        return total == 0 ? 0.0 : (double) getConflicts() / total;
+    }
+}
@@ -0,0 +1,19 @@
+package spring.datajpa.retry;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// 낙관적 락 충돌(@Version) 시 메소드를 다시 실행한다.
+// 재시도마다 새 트랜잭션이 필요하므로 @Transactional 과 함께 붙이면 트랜잭션 바깥에서 동작한다.
+// 이미 트랜잭션 안에서 호출되면 재시도하지 않는다. (바깥 트랜잭션이 rollback-only 가 되기 때문)
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+
+    int maxAttempts() default 3;
+
+    // 첫 재시도 대기 시간. 재시도마다 두 배씩 늘리고 지터를 더한다.
+    long backoffMillis() default 20;
+}
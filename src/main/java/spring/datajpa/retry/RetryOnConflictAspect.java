@@ -0,0 +1,58 @@
+package spring.datajpa.retry;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.OptimisticLockException;
+import java.util.concurrent.ThreadLocalRandom;
+
+// 트랜잭션 어드바이스(LOWEST_PRECEDENCE)보다 바깥에서 실행되어야 재시도마다 새 트랜잭션이 열린다.
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+@RequiredArgsConstructor
+public class RetryOnConflictAspect {
+
+    private final RetryMetrics retryMetrics;
+
+    @Around("@annotation(retryOnConflict)")
+    public Object retry(ProceedingJoinPoint joinPoint, RetryOnConflict retryOnConflict) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        retryMetrics.recordInvocation();
+        int attempt = 1;
+        while (true) {
+            try {
+                return joinPoint.proceed();
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                retryMetrics.recordConflict();
+                if (attempt >= retryOnConflict.maxAttempts()) {
+                    retryMetrics.recordExhausted();
+                    throw e;
+                }
+                log.debug("낙관적 락 충돌, 재시도 {}/{} {}", attempt, retryOnConflict.maxAttempts(),
+                        joinPoint.getSignature().toShortString());
+                backoff(retryOnConflict.backoffMillis(), attempt);
+                attempt++;
+            }
+        }
+    }
+
+    private void backoff(long baseMillis, int attempt) throws InterruptedException {
+        if (baseMillis <= 0) {
+            return;
+        }
+        long delay = baseMillis << (attempt - 1);
+        Thread.sleep(delay + ThreadLocalRandom.current().nextLong(baseMillis));
+    }
+}
@@ -0,0 +1,152 @@
+package spring.datajpa.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring.datajpa.dto.UsernameMatch;
+import spring.datajpa.event.MemberBulkUpdatedEvent;
+import spring.datajpa.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// username 접두어 검색용 메모리 인덱스. (username, id) 순으로 정렬된 skip list 하나다.
+// 접두어 검색은 [prefix, prefix + Character.MAX_VALUE) 구간을 앞에서부터 K개 읽으면 끝나서 회원 수와 상관없이 빠르다.
+//
+// 메모리: 항목 하나에 (username 참조, long id) 뿐이고, username 은 intern 해서 같은 이름은 한 번만 들고 있다.
+// 동기화: UsernameIndexEventListener 가 커밋된 insert/update/delete 를 반영한다.
+// 테이블을 다시 읽어서 만드는 동안(시작 적재, 벌크 삭제 후) 들어온 변경은 모아 두었다가 새 인덱스에 다시 적용한 뒤 바꿔 끼운다.
+// 적재가 끝나기 전(ready 가 아닐 때)에는 UsernameSearchService 가 db 인덱스로 검색한다.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "datajpa.username-index.enabled", havingValue = "true")
+public class UsernameIndex {
+
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparing((Entry e) -> e.username)
+            .thenComparingLong(e -> e.id);
+
+    private final MemberRepository memberRepository;
+    private final TransactionTemplate readOnlyTx;
+    private volatile NavigableSet<Entry> entries = new ConcurrentSkipListSet<>(ORDER);
+    private volatile boolean ready;
+
+    private final Object changeLock = new Object();
+    private List<Consumer<NavigableSet<Entry>>> changesDuringRebuild; // changeLock 으로 보호. 다시 만드는 중이 아니면 null
+
+    public UsernameIndex(MemberRepository memberRepository, PlatformTransactionManager transactionManager) {
+        this.memberRepository = memberRepository;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.nanoTime();
+        rebuild();
+        ready = true;
+        log.info("username index loaded: {} entries in {}ms", entries.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // 벌크로 회원이 빠지면(보관 이동 등) 어떤 회원인지 모르므로 새로 만들어 바꿔 끼운다. 만드는 동안은 기존 인덱스로 검색한다.
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void afterBulkUpdated(MemberBulkUpdatedEvent event) {
+        if (!event.isRowsRemoved()) {
+            return; // 벌크 수정은 username 을 바꾸지 않는다.
+        }
+        rebuild();
+        log.info("username index rebuilt after {}: {} entries", event.getOperation(), entries.size());
+    }
+
+    // 읽기 시작한 뒤 커밋된 변경은 스트림에 보일 수도, 안 보일 수도 있으므로 다 읽은 다음 순서대로 다시 적용한다.
+    // (삭제가 스트림보다 먼저 반영되고 스트림이 지운 row 를 다시 넣는 경우도 마지막 적용으로 바로잡힌다)
+    private synchronized void rebuild() {
+        synchronized (changeLock) {
+            changesDuringRebuild = new ArrayList<>();
+        }
+        NavigableSet<Entry> rebuilt = new ConcurrentSkipListSet<>(ORDER);
+        try {
+            readOnlyTx.executeWithoutResult(status -> {
+                try (Stream<UsernameMatch> stream = memberRepository.streamUsernames()) {
+                    stream.filter(match -> match.getUsername() != null)
+                            .forEach(match -> rebuilt.add(new Entry(match.getUsername().intern(), match.getId())));
+                }
+            });
+            synchronized (changeLock) {
+                changesDuringRebuild.forEach(change -> change.accept(rebuilt));
+                entries = rebuilt;
+            }
+        } finally {
+            synchronized (changeLock) {
+                changesDuringRebuild = null;
+            }
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // username 순(같으면 id 순)으로 최대 limit 개
+    public List<UsernameMatch> search(String prefix, int limit) {
+        Entry from = new Entry(prefix, Long.MIN_VALUE);
+        Entry to = new Entry(prefix + Character.MAX_VALUE, Long.MIN_VALUE);
+        List<UsernameMatch> result = new ArrayList<>(Math.min(limit, 16));
+        Iterator<Entry> it = entries.subSet(from, true, to, false).iterator();
+        while (it.hasNext() && result.size() < limit) {
+            Entry entry = it.next();
+            result.add(new UsernameMatch(entry.id, entry.username));
+        }
+        return result;
+    }
+
+    void add(Long id, String username) {
+        if (id != null && username != null) {
+            Entry entry = new Entry(username.intern(), id);
+            apply(set -> set.add(entry));
+        }
+    }
+
+    void remove(Long id, String username) {
+        if (id != null && username != null) {
+            Entry entry = new Entry(username, id);
+            apply(set -> set.remove(entry));
+        }
+    }
+
+    // 지금 인덱스에 바로 반영하고, 다시 만드는 중이면 새 인덱스에 적용할 수 있게 남겨 둔다.
+    private void apply(Consumer<NavigableSet<Entry>> change) {
+        synchronized (changeLock) {
+            change.accept(entries);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(change);
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final String username;
+        private final long id;
+
+        private Entry(String username, long id) {
+            this.username = username;
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package spring.datajpa.search;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import spring.datajpa.entity.Member;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.Objects;
+
+// 커밋된 Member insert/update/delete 의 username 을 UsernameIndex 에 반영한다. (TeamStatsEventListener 와 같은 방식)
+// 벌크 update 는 username 을 바꾸지 않는다. 벌크로 회원이 빠지는 경우는 UsernameIndex 가 다시 만든다.
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "datajpa.username-index.enabled", havingValue = "true")
+public class UsernameIndexEventListener implements PostCommitInsertEventListener,
+        PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private final EntityManagerFactory emf;
+    private final UsernameIndex index;
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            index.add((Long) event.getId(), username(event.getPersister(), event.getState()));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        Long id = (Long) event.getId();
+        String username = username(event.getPersister(), event.getState());
+        if (event.getOldState() == null) {
+            // 이전 이름을 모르면 엔티티에서 지울 수 없으므로 새 이름만 넣는다. (옛 항목은 다음 재시작 때 정리)
+            index.add(id, username);
+            return;
+        }
+        String oldUsername = username(event.getPersister(), event.getOldState());
+        if (!Objects.equals(username, oldUsername)) {
+            index.remove(id, oldUsername);
+            index.add(id, username);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            index.remove((Long) event.getId(), username(event.getPersister(), event.getDeletedState()));
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return Member.class.isAssignableFrom(persister.getMappedClass());
+    }
+
+    private static String username(EntityPersister persister, Object[] state) {
+        return (String) state[persister.getPropertyIndex("username")];
+    }
+}
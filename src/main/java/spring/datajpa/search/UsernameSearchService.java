@@ -0,0 +1,46 @@
+package spring.datajpa.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import spring.datajpa.dto.UsernameMatch;
+import spring.datajpa.exception.InvalidRequestException;
+import spring.datajpa.repository.MemberRepository;
+
+import java.util.List;
+
+// username 접두어(자동완성) 검색.
+// 메모리 인덱스(datajpa.username-index.enabled)가 준비돼 있으면 그걸 쓰고, 아니면 db 인덱스로 like 'abc%' 조회
+@Service
+@RequiredArgsConstructor
+public class UsernameSearchService {
+
+    public static final int MAX_LIMIT = 100;
+
+    private final MemberRepository memberRepository;
+    private final ObjectProvider<UsernameIndex> usernameIndex;
+
+    @Transactional(readOnly = true)
+    public List<UsernameMatch> searchByPrefix(String prefix, int limit) {
+        if (prefix == null || prefix.isEmpty()) {
+            throw new InvalidRequestException("prefix는 비어 있을 수 없습니다.");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new InvalidRequestException("limit는 1 ~ " + MAX_LIMIT + " 이어야 합니다: " + limit);
+        }
+        UsernameIndex index = usernameIndex.getIfAvailable();
+        if (index != null && index.isReady()) {
+            return index.search(prefix, limit);
+        }
+        return memberRepository.findUsernameMatches(escapeLike(prefix) + "%", PageRequest.of(0, limit));
+    }
+
+    // 사용자가 넣은 %, _ 가 와일드카드로 동작하지 않게 한다.
+    static String escapeLike(String value) {
+        return value.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+}
@@ -0,0 +1,63 @@
+package spring.datajpa.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import spring.datajpa.dto.MemberDto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+// Page<MemberDto> 대신 쓰는 작은 페이지 응답 (/members?format=compact).
+// {"page":0,"size":20,"total":123,"fields":["id","username","teamName"],"rows":[[1,"a","teamA"],...]}
+//
+// 리플렉션 없이 JsonGenerator 로 바로 쓰고, 행은 객체 대신 배열이라 필드 이름이 한 번만 나간다.
+// Pageable/Sort 메타데이터는 page, size 만 남긴다. 조회 결과(iterator)를 모으지 않고 읽는 대로 쓴다.
+@Component
+public class CompactPageWriter {
+
+    private static final String[] FIELDS = {"id", "username", "teamName"};
+
+    private final JsonFactory jsonFactory;
+
+    public CompactPageWriter(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    public long write(OutputStream out, Pageable pageable, long total, Iterator<MemberDto> rows) throws IOException {
+        long count = 0;
+        try (JsonGenerator generator = jsonFactory.createGenerator(out, JsonEncoding.UTF8)) {
+            // 출력 스트림은 호출한 쪽이 닫는다.
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            if (pageable.isPaged()) {
+                generator.writeNumberField("page", pageable.getPageNumber());
+                generator.writeNumberField("size", pageable.getPageSize());
+            }
+            generator.writeNumberField("total", total);
+            generator.writeFieldName("fields");
+            generator.writeArray(FIELDS, 0, FIELDS.length);
+            generator.writeArrayFieldStart("rows");
+            while (rows.hasNext()) {
+                MemberDto row = rows.next();
+                generator.writeStartArray();
+                if (row.getId() == null) {
+                    generator.writeNull();
+                } else {
+                    generator.writeNumber(row.getId());
+                }
+                generator.writeString(row.getUsername());
+                generator.writeString(row.getTeamName());
+                generator.writeEndArray();
+                count++;
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,128 @@
+package spring.datajpa.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import spring.datajpa.dto.MemberDto;
+import spring.datajpa.event.MemberBulkUpdatedEvent;
+import spring.datajpa.repository.ArchivedMemberRepository;
+import spring.datajpa.repository.ChunkOptions;
+import spring.datajpa.repository.ChunkStatement;
+import spring.datajpa.repository.ChunkedUpdateRunner;
+import spring.datajpa.repository.MemberRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+// 오래 수정되지 않은 회원을 member -> member_archive 로 옮긴다. member 테이블(인덱스, 카운트, 벌크 수정)을 작게 유지하기 위함
+//
+// id 범위 청크마다 한 트랜잭션에서 (ChunkedUpdateRunner)
+//   1. 이전 실행에서 남은 보관 사본 중 원본이 아직 member 에 있는 것 삭제
+//   2. insert-select 로 보관 테이블에 복사
+//   3. 보관 사본과 버전이 같은 회원만 member 에서 삭제 (복사 도중 수정된 회원은 남는다)
+// MemberRepository 는 그대로 member 테이블만 본다. 보관된 회원까지 볼 때는 findAny*/findAll* 을 쓴다.
+@Slf4j
+@Service
+public class MemberArchiveService {
+
+    private static final String ID_RANGE = "select min(m.id), max(m.id) from Member m";
+
+    private static final String DELETE_LEFTOVER_COPIES =
+            "delete from ArchivedMember a where a.id >= :fromId and a.id < :toId" +
+                    " and a.id in (select m.id from Member m where m.id >= :fromId and m.id < :toId)";
+    private static final String COPY_COLD_MEMBERS =
+            "insert into ArchivedMember (id, username, age, version, teamId," +
+                    " createDate, lastModifiedDate, createdBy, lastModifiedBy, archivedDate)" +
+                    " select m.id, m.username, m.age, m.version, m.team.id," +
+                    " m.createDate, m.lastModifiedDate, m.createdBy, m.lastModifiedBy, current_timestamp" +
+                    " from Member m where m.id >= :fromId and m.id < :toId and m.lastModifiedDate < :cutoff";
+    private static final String DELETE_ARCHIVED_MEMBERS =
+            "delete from Member m where m.id >= :fromId and m.id < :toId" +
+                    " and exists (select a.id from ArchivedMember a where a.id = m.id and a.version = m.version)";
+
+    private final ChunkedUpdateRunner chunkedUpdateRunner;
+    private final MemberRepository memberRepository;
+    private final ArchivedMemberRepository archivedMemberRepository;
+    private final ApplicationEventPublisher publisher;
+    private final Duration olderThan;
+    private final int chunkSize;
+    private final long throttleMillis;
+
+    public MemberArchiveService(ChunkedUpdateRunner chunkedUpdateRunner,
+                                MemberRepository memberRepository,
+                                ArchivedMemberRepository archivedMemberRepository,
+                                ApplicationEventPublisher publisher,
+                                @Value("${datajpa.archive.older-than:P365D}") Duration olderThan,
+                                @Value("${datajpa.archive.chunk-size:1000}") int chunkSize,
+                                @Value("${datajpa.archive.throttle-millis:50}") long throttleMillis) {
+        this.chunkedUpdateRunner = chunkedUpdateRunner;
+        this.memberRepository = memberRepository;
+        this.archivedMemberRepository = archivedMemberRepository;
+        this.publisher = publisher;
+        this.olderThan = olderThan;
+        this.chunkSize = chunkSize;
+        this.throttleMillis = throttleMillis;
+    }
+
+    // 설정(datajpa.archive.cron)이 있을 때만 주기 실행
+    @Scheduled(cron = "${datajpa.archive.cron:-}")
+    public void archiveColdMembers() {
+        long moved = archive(LocalDateTime.now().minus(olderThan), ChunkOptions.of(chunkSize).throttle(throttleMillis));
+        log.info("archived {} members not modified for {}", moved, olderThan);
+    }
+
+    // cutoff 이전에 마지막으로 수정된 회원을 옮기고, 옮긴 수를 돌려준다.
+    // 청크마다 커밋되므로 중간에 실패해도 앞 청크는 옮겨진 상태다. (ChunkProgress.nextFromId 로 재시작)
+    // 넘겨받은 options 는 바꾸지 않는다. (같은 옵션으로 다시 호출해도 리스너가 겹치지 않게)
+    public long archive(LocalDateTime cutoff, ChunkOptions options) {
+        LongAdder moved = new LongAdder();
+        ChunkOptions counting = options.withProgressListener(progress -> {
+            moved.add(progress.getChunkRows());
+            options.getProgressListener().accept(progress);
+        });
+        List<ChunkStatement> statements = List.of(
+                ChunkStatement.of(DELETE_LEFTOVER_COPIES),
+                ChunkStatement.of(COPY_COLD_MEMBERS, Map.of("cutoff", cutoff)),
+                ChunkStatement.of(DELETE_ARCHIVED_MEMBERS));
+        try {
+            return chunkedUpdateRunner.run(ID_RANGE, statements, counting);
+        } finally {
+            if (moved.sum() > 0) {
+                // 캐시, 팀 통계, username 인덱스가 빠진 회원을 정리하도록
+                publisher.publishEvent(new MemberBulkUpdatedEvent("archive", true));
+            }
+        }
+    }
+
+    // member 에 없으면 보관 테이블에서 찾는다.
+    @Transactional(readOnly = true)
+    public Optional<MemberDto> findAnyById(Long id) {
+        Optional<MemberDto> hot = memberRepository.findMemberDtoById(id);
+        return hot.isPresent() ? hot : archivedMemberRepository.findMemberDtoById(id);
+    }
+
+    // 두 테이블을 합친 결과 (id 순). 옮기는 도중이라 양쪽에 다 있으면 member 쪽을 쓴다.
+    @Transactional(readOnly = true)
+    public List<MemberDto> findAllByUsername(String username) {
+        List<MemberDto> result = new ArrayList<>(memberRepository.findMemberDtoByUsername(username));
+        Set<Long> hotIds = result.stream().map(MemberDto::getId).collect(Collectors.toSet());
+        for (MemberDto archived : archivedMemberRepository.findMemberDtoByUsername(username)) {
+            if (!hotIds.contains(archived.getId())) {
+                result.add(archived);
+            }
+        }
+        result.sort(Comparator.comparing(MemberDto::getId));
+        return result;
+    }
+}
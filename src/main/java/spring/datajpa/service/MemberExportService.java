@@ -0,0 +1,59 @@
+package spring.datajpa.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import spring.datajpa.dto.MemberDto;
+import spring.datajpa.repository.MemberRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// 전체 회원을 NDJSON(한 줄에 JSON 하나)으로 내보낸다.
+// 조회 결과를 리스트로 모으지 않고 한 건씩 바로 써서 회원 수와 상관없이 힙 사용량이 일정하다.
+// 회원 목록 한 페이지를 compact 형식으로 쓰는 것도 같은 방식 (CompactPageWriter)
+@Service
+@RequiredArgsConstructor
+public class MemberExportService {
+
+    private final MemberRepository memberRepository;
+    private final ObjectMapper objectMapper;
+    private final CompactPageWriter compactPageWriter;
+
+    // 스트림을 끝까지 읽는 동안 커넥션이 열려 있어야 하므로 트랜잭션 안에서 실행
+    @Transactional(readOnly = true)
+    public long exportNdjson(OutputStream out) throws IOException {
+        long count = 0;
+        // 건마다 flush 하지 않고 Jackson 버퍼가 찰 때만 내보낸다.
+        try (Stream<MemberDto> stream = memberRepository.streamMemberDto();
+             SequenceWriter writer = objectMapper.writerFor(MemberDto.class)
+                     .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                     .withRootValueSeparator("\n")
+                     .writeValues(out)) {
+            Iterator<MemberDto> it = stream.iterator();
+            while (it.hasNext()) {
+                writer.write(it.next());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Transactional(readOnly = true)
+    public long writeCompactPage(Pageable pageable, OutputStream out) throws IOException {
+        long total = memberRepository.count();
+        if (pageable.isPaged() && pageable.getOffset() >= total) {
+            return compactPageWriter.write(out, pageable, total, Collections.emptyIterator());
+        }
+        try (Stream<MemberDto> stream = memberRepository.streamMemberDtoPage(pageable)) {
+            return compactPageWriter.write(out, pageable, total, stream.iterator());
+        }
+    }
+}
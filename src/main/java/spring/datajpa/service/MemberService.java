@@ -0,0 +1,56 @@
+package spring.datajpa.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import spring.datajpa.dto.CursorPage;
+import spring.datajpa.dto.MemberCursor;
+import spring.datajpa.dto.MemberDto;
+import spring.datajpa.entity.Member;
+import spring.datajpa.exception.InvalidRequestException;
+import spring.datajpa.repository.MemberRepository;
+import spring.datajpa.retry.RetryOnConflict;
+
+import java.util.Collection;
+
+// 기본은 읽기 전용 트랜잭션. 하이버네이트 세션이 FlushMode.MANUAL + 기본 read-only 가 되어
+// 스냅샷을 만들지 않고 쿼리 전 자동 flush(변경 감지)도 하지 않는다. JDBC 커넥션도 read-only (replica 라우팅 기준)
+// 쓰기 메소드만 @Transactional 로 덮어쓴다.
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class MemberService {
+
+    private final MemberRepository memberRepository;
+
+    // 엔티티 조회 후 map 하지 않고 dto로 바로 조회 (teamName 포함)
+    public Page<MemberDto> findPage(Pageable pageable) {
+        return memberRepository.findMemberDtoPage(pageable);
+    }
+
+    // 엔티티 -> dto 변환까지 트랜잭션 안에서 끝낸다. (open-in-view 를 끄므로 컨트롤러에서는 지연 로딩이 안 된다)
+    // 레포지토리에서 던진 IllegalArgumentException 은 스프링 예외 변환으로 500 이 되므로 요청 값은 여기서 확인한다.
+    public CursorPage<MemberDto> findAfter(MemberCursor after, int size) {
+        if (size < 1) {
+            throw new InvalidRequestException("size는 1 이상이어야 합니다: " + size);
+        }
+        CursorPage<Member> page = memberRepository.findMemberKeyset(after, size);
+        return page.map(MemberDto::new);
+    }
+
+    @Transactional
+    public int join(Collection<Member> members) {
+        return memberRepository.bulkInsert(members);
+    }
+
+    // 락 없이 변경 감지로 수정하고, 커밋 시 version 이 달라졌으면 처음부터 다시 읽어서 재시도
+    @RetryOnConflict
+    @Transactional
+    public void changeAge(Long memberId, int age) {
+        Member member = memberRepository.findById(memberId)
+                .orElseThrow(() -> new InvalidRequestException("회원이 없습니다. id=" + memberId));
+        member.setAge(age);
+    }
+}
@@ -0,0 +1,64 @@
+package spring.datajpa.stats;
+
+import spring.datajpa.dto.TeamStatsDto;
+
+// 팀 하나의 count/sum/min/max 를 증분으로 유지한다.
+// min/max 는 빼기로 되돌릴 수 없어서, 최소/최대값을 가진 회원이 빠지면 dirty 로 표시하고 다음 조회 때 다시 계산한다.
+class TeamStatsAccumulator {
+
+    private final Long teamId;
+    private long count;
+    private long sum;
+    private int min = Integer.MAX_VALUE;
+    private int max = Integer.MIN_VALUE;
+    private boolean dirty;
+
+    TeamStatsAccumulator(Long teamId) {
+        this.teamId = teamId;
+    }
+
+    static TeamStatsAccumulator of(TeamStatsDto stats) {
+        TeamStatsAccumulator acc = new TeamStatsAccumulator(stats.getTeamId());
+        acc.count = stats.getMemberCount();
+        acc.sum = stats.getAgeSum();
+        if (stats.getAgeMin() != null) {
+            acc.min = stats.getAgeMin();
+            acc.max = stats.getAgeMax();
+        }
+        return acc;
+    }
+
+    synchronized void add(int age) {
+        count++;
+        sum += age;
+        min = Math.min(min, age);
+        max = Math.max(max, age);
+    }
+
+    synchronized void remove(int age) {
+        count--;
+        sum -= age;
+        if (count <= 0) {
+            count = 0;
+            sum = 0;
+            min = Integer.MAX_VALUE;
+            max = Integer.MIN_VALUE;
+        } else if (age <= min || age >= max) {
+            dirty = true;
+        }
+    }
+
+    synchronized void markDirty() {
+        dirty = true;
+    }
+
+    synchronized boolean isDirty() {
+        return dirty;
+    }
+
+    synchronized TeamStatsDto snapshot() {
+        return new TeamStatsDto(teamId, count, sum,
+                count == 0 ? null : min,
+                count == 0 ? null : max);
+    }
+}
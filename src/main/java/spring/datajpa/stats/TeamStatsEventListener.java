@@ -0,0 +1,116 @@
+package spring.datajpa.stats;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.stereotype.Component;
+import spring.datajpa.entity.Member;
+import spring.datajpa.entity.Team;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.Objects;
+
+// 커밋된 Member insert/update/delete 를 TeamStatsStore 에 반영하는 하이버네이트 리스너.
+// JPA @PostPersist 등은 롤백돼도 불리므로 하이버네이트의 post-commit 이벤트를 쓴다.
+// 엔티티 대신 이벤트의 state/oldState 배열에서 age, team 을 읽는다. (변경 전 값이 필요)
+@Component
+@RequiredArgsConstructor
+public class TeamStatsEventListener implements PostCommitInsertEventListener,
+        PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private final EntityManagerFactory emf;
+    private final TeamStatsStore store;
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            EntityPersister persister = event.getPersister();
+            store.added(teamId(persister, event.getState()), age(persister, event.getState()));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        EntityPersister persister = event.getPersister();
+        Long teamId = teamId(persister, event.getState());
+        if (event.getOldState() == null) {
+            // 준영속 엔티티를 select 없이 update 한 경우. 이전 값을 모르므로 재계산에 맡긴다.
+            store.markDirty(teamId);
+            return;
+        }
+        Long oldTeamId = teamId(persister, event.getOldState());
+        int age = age(persister, event.getState());
+        int oldAge = age(persister, event.getOldState());
+        if (Objects.equals(teamId, oldTeamId) && age == oldAge) {
+            return;
+        }
+        store.removed(oldTeamId, oldAge);
+        store.added(teamId, age);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            EntityPersister persister = event.getPersister();
+            store.removed(teamId(persister, event.getDeletedState()), age(persister, event.getDeletedState()));
+        }
+    }
+
+    // 롤백된 변경은 반영하지 않는다.
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return Member.class.isAssignableFrom(persister.getMappedClass());
+    }
+
+    private static int age(EntityPersister persister, Object[] state) {
+        Object age = state[persister.getPropertyIndex("age")];
+        return age == null ? 0 : (Integer) age;
+    }
+
+    private static Long teamId(EntityPersister persister, Object[] state) {
+        Object team = state[persister.getPropertyIndex("team")];
+        if (team == null) {
+            return null;
+        }
+        // 지연 로딩 프록시를 초기화하지 않고 id 만 꺼낸다.
+        if (team instanceof HibernateProxy) {
+            return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+        }
+        return ((Team) team).getId();
+    }
+}
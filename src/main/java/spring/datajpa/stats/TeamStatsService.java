@@ -0,0 +1,76 @@
+package spring.datajpa.stats;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import spring.datajpa.dto.TeamStatsDto;
+import spring.datajpa.event.MemberBulkUpdatedEvent;
+import spring.datajpa.repository.MemberRepository;
+
+// 팀별 회원 통계 조회. count/sum 쿼리 대신 TeamStatsStore 의 증분 통계를 돌려준다.
+//
+// 보정(재계산): 시작 시, 벌크 수정 커밋 후, 주기적으로(datajpa.team-stats.reconcile-interval) 집계 쿼리로 다시 맞춘다.
+// 벌크 update 나 다른 인스턴스의 변경은 엔티티 이벤트가 없어서 여기서만 반영된다.
+// 최소/최대값을 가진 회원이 빠진 팀(dirty)은 조회할 때 그 팀만 다시 계산한다.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TeamStatsService {
+
+    private final MemberRepository memberRepository;
+    private final TeamStatsStore store;
+
+    @Transactional(readOnly = true)
+    public TeamStatsDto teamStats(Long teamId) {
+        if (store.isDirty(teamId)) {
+            reconcile(teamId);
+        }
+        return store.get(teamId);
+    }
+
+    @Transactional(readOnly = true)
+    public TeamStatsDto totalStats() {
+        if (store.isTotalDirty()) {
+            reconcileAll();
+        }
+        return store.total();
+    }
+
+    // 전체 재계산. 집계 도중 커밋된 변경이 있는 팀은 dirty 로 남아 다음 조회 때 다시 계산된다.
+    @Transactional(readOnly = true)
+    @Scheduled(fixedDelayString = "${datajpa.team-stats.reconcile-interval:PT10M}",
+            initialDelayString = "${datajpa.team-stats.reconcile-interval:PT10M}")
+    public void reconcileAll() {
+        long start = System.nanoTime();
+        TeamStatsStore.Generation generation = store.generation();
+        store.replaceAll(memberRepository.findTeamStats(), generation);
+        log.debug("team stats reconciled in {}ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        reconcileAll();
+    }
+
+    // 벌크 수정은 어떤 회원이 바뀌었는지 모르므로 전부 다시 계산
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void afterBulkUpdated(MemberBulkUpdatedEvent event) {
+        store.markAllDirty();
+    }
+
+    private void reconcile(Long teamId) {
+        if (teamId == null) {
+            reconcileAll();
+            return;
+        }
+        TeamStatsStore.Generation generation = store.generation(teamId);
+        store.replace(teamId, memberRepository.findTeamStats(teamId)
+                .orElseGet(() -> new TeamStatsDto(teamId, 0L, 0L, null, null)), generation);
+    }
+}
@@ -0,0 +1,176 @@
+package spring.datajpa.stats;
+
+import org.springframework.stereotype.Component;
+import spring.datajpa.dto.TeamStatsDto;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// 팀별 통계와 전체 통계를 메모리에 들고 있다. 조회는 O(1)
+// 이 인스턴스에서 커밋된 변경만 반영되므로 다른 인스턴스/직접 sql 로 생긴 차이는 TeamStatsService 의 재계산으로 맞춘다.
+//
+// 재계산 도중 커밋된 변경은 집계 결과에 들어갔는지 알 수 없다. (증분은 다시 적용하면 두 번 더해진다)
+// 그래서 팀마다 변경 횟수(generation)를 세고, 집계를 시작할 때 본 값과 달라진 팀은 지금 값을 그대로 두고 dirty 로 표시해 다음 조회 때 그 팀만 다시 계산한다.
+@Component
+public class TeamStatsStore {
+
+    private static final Long NO_TEAM = -1L;
+
+    private volatile Map<Long, TeamStatsAccumulator> byTeam = new ConcurrentHashMap<>();
+    private volatile TeamStatsAccumulator total = new TeamStatsAccumulator(null);
+
+    // 아래는 모두 changeLock 으로 보호. 팀 generation 은 지우지 않는다. (팀 수만큼)
+    private final Object changeLock = new Object();
+    private final Map<Long, Long> generations = new HashMap<>();
+    private long totalGeneration;
+    private long bulkGeneration;
+
+    void added(Long teamId, int age) {
+        synchronized (changeLock) {
+            changed(teamId);
+            accumulator(teamId).add(age);
+            total.add(age);
+        }
+    }
+
+    void removed(Long teamId, int age) {
+        synchronized (changeLock) {
+            changed(teamId);
+            accumulator(teamId).remove(age);
+            total.remove(age);
+        }
+    }
+
+    void markDirty(Long teamId) {
+        synchronized (changeLock) {
+            changed(teamId);
+            accumulator(teamId).markDirty();
+            total.markDirty();
+        }
+    }
+
+    void markAllDirty() {
+        synchronized (changeLock) {
+            bulkGeneration++;
+            totalGeneration++;
+            byTeam.values().forEach(TeamStatsAccumulator::markDirty);
+            total.markDirty();
+        }
+    }
+
+    // 재계산 쿼리를 날리기 전에 받아 두고 replace/replaceAll 에 넘긴다.
+    Generation generation() {
+        synchronized (changeLock) {
+            return new Generation(new HashMap<>(generations), totalGeneration, bulkGeneration);
+        }
+    }
+
+    // 한 팀만 다시 계산할 때는 그 팀 것만 복사한다.
+    Generation generation(Long teamId) {
+        Long key = key(teamId);
+        synchronized (changeLock) {
+            return new Generation(Map.of(key, generations.getOrDefault(key, 0L)), totalGeneration, bulkGeneration);
+        }
+    }
+
+    boolean isDirty(Long teamId) {
+        TeamStatsAccumulator acc = byTeam.get(key(teamId));
+        return acc != null && acc.isDirty();
+    }
+
+    boolean isTotalDirty() {
+        return total.isDirty();
+    }
+
+    TeamStatsDto get(Long teamId) {
+        TeamStatsAccumulator acc = byTeam.get(key(teamId));
+        return acc == null ? new TeamStatsDto(teamId, 0L, 0L, null, null) : acc.snapshot();
+    }
+
+    TeamStatsDto total() {
+        return total.snapshot();
+    }
+
+    void replace(Long teamId, TeamStatsDto stats, Generation since) {
+        Long key = key(teamId);
+        synchronized (changeLock) {
+            if (since.changed(key, generations) || since.bulkGeneration != bulkGeneration) {
+                accumulator(teamId).markDirty();
+                return;
+            }
+            byTeam.put(key, TeamStatsAccumulator.of(stats));
+        }
+    }
+
+    // 재계산 결과로 통째로 교체. 집계 도중 바뀐 팀과 전체 통계는 지금 값을 두고 dirty 로 남긴다.
+    void replaceAll(List<TeamStatsDto> rows, Generation since) {
+        Map<Long, TeamStatsAccumulator> fresh = rows.stream()
+                .collect(Collectors.toConcurrentMap(row -> key(row.getTeamId()), TeamStatsAccumulator::of));
+        long count = 0;
+        long sum = 0;
+        Integer min = null;
+        Integer max = null;
+        for (TeamStatsDto row : rows) {
+            count += row.getMemberCount();
+            sum += row.getAgeSum();
+            if (row.getAgeMin() != null) {
+                min = min == null ? row.getAgeMin() : Math.min(min, row.getAgeMin());
+                max = max == null ? row.getAgeMax() : Math.max(max, row.getAgeMax());
+            }
+        }
+        synchronized (changeLock) {
+            if (since.bulkGeneration != bulkGeneration) {
+                // 집계 뒤에 커밋된 벌크 수정은 결과에 없을 수 있다.
+                fresh.values().forEach(TeamStatsAccumulator::markDirty);
+            }
+            for (Long key : generations.keySet()) {
+                if (since.changed(key, generations)) {
+                    TeamStatsAccumulator current = byTeam.getOrDefault(key, fresh.get(key));
+                    if (current != null) {
+                        current.markDirty();
+                        fresh.put(key, current);
+                    }
+                }
+            }
+            byTeam = fresh;
+            if (since.totalGeneration == totalGeneration) {
+                total = TeamStatsAccumulator.of(new TeamStatsDto(null, count, sum, min, max));
+            } else {
+                total.markDirty();
+            }
+        }
+    }
+
+    // changeLock 안에서 호출
+    private void changed(Long teamId) {
+        generations.merge(key(teamId), 1L, Long::sum);
+        totalGeneration++;
+    }
+
+    private TeamStatsAccumulator accumulator(Long teamId) {
+        return byTeam.computeIfAbsent(key(teamId), k -> new TeamStatsAccumulator(teamId));
+    }
+
+    private static Long key(Long teamId) {
+        return teamId == null ? NO_TEAM : teamId;
+    }
+
+    static final class Generation {
+        private final Map<Long, Long> byTeam;
+        private final long totalGeneration;
+        private final long bulkGeneration;
+
+        private Generation(Map<Long, Long> byTeam, long totalGeneration, long bulkGeneration) {
+            this.byTeam = byTeam;
+            this.totalGeneration = totalGeneration;
+            this.bulkGeneration = bulkGeneration;
+        }
+
+        private boolean changed(Long key, Map<Long, Long> current) {
+            return !current.getOrDefault(key, 0L).equals(byTeam.getOrDefault(key, 0L));
+        }
+    }
+}
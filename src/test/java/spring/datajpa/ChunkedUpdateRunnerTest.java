@@ -0,0 +1,157 @@
+package spring.datajpa;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import spring.datajpa.entity.Member;
+import spring.datajpa.repository.ChunkOptions;
+import spring.datajpa.repository.ChunkProgress;
+import spring.datajpa.repository.ChunkStatement;
+import spring.datajpa.repository.ChunkedUpdateRunner;
+import spring.datajpa.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 청크마다 커밋하므로 테스트 트랜잭션 없이 실행하고 끝나면 지운다.
+@SpringBootTest
+public class ChunkedUpdateRunnerTest {
+
+    static final String ID_RANGE = "select min(m.id), max(m.id) from Member m where m.username = 'chunk'";
+    static final String AGE_PLUS = "update Member m set m.age = m.age + :plus" +
+            " where m.username = 'chunk' and m.id >= :fromId and m.id < :toId";
+
+    @Autowired
+    ChunkedUpdateRunner chunkedUpdateRunner;
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    public void chunkBoundaries(){
+        //given : 5명을 2개씩 -> 마지막 청크는 1개
+        List<Member> members = saveMembers("chunk", 5, 10);
+        List<Long> ids = idsOf(members);
+        long minId = ids.get(0);
+        long maxId = ids.get(ids.size() - 1);
+        List<ChunkProgress> progresses = new ArrayList<>();
+
+        try {
+            //when
+            long total = chunkedUpdateRunner.run(ID_RANGE, AGE_PLUS, Map.of("plus", 1),
+                    ChunkOptions.of(2).onProgress(progresses::add));
+
+            //then : [min, min+2), [min+2, min+4) ... max 를 넘을 때까지, 청크마다 한 번씩 콜백
+            assertThat(total).isEqualTo(5);
+            assertThat(progresses).isNotEmpty();
+            long expectedFrom = minId;
+            long expectedTotal = 0;
+            for (ChunkProgress progress : progresses) {
+                long from = progress.getFromId();
+                long to = progress.getNextFromId();
+                assertThat(from).isEqualTo(expectedFrom);
+                assertThat(to).isEqualTo(from + 2);
+                assertThat(progress.getMaxId()).isEqualTo(maxId);
+                assertThat(progress.getChunkRows()).isEqualTo(ids.stream().filter(id -> id >= from && id < to).count());
+                expectedTotal += progress.getChunkRows();
+                assertThat(progress.getTotalRows()).isEqualTo(expectedTotal);
+                expectedFrom = to;
+            }
+            ChunkProgress last = progresses.get(progresses.size() - 1);
+            assertThat(last.isDone()).isTrue();
+            assertThat(last.getFromId()).isLessThanOrEqualTo(maxId);
+            assertThat(progresses.subList(0, progresses.size() - 1)).noneMatch(ChunkProgress::isDone);
+
+            assertThat(memberRepository.findAllById(ids)).extracting("age").containsOnly(11);
+        } finally {
+            memberRepository.deleteAllInBatch(members);
+        }
+    }
+
+    @Test
+    public void resumeFrom(){
+        //given
+        List<Member> members = saveMembers("chunk", 5, 10);
+        List<Long> ids = idsOf(members);
+        Long resumeId = ids.get(3);
+        List<ChunkProgress> progresses = new ArrayList<>();
+
+        try {
+            //when : 앞선 실행이 ids[3] 직전까지 끝났다고 보고 재시작
+            long total = chunkedUpdateRunner.run(ID_RANGE, AGE_PLUS, Map.of("plus", 1),
+                    ChunkOptions.of(2).resumeFrom(resumeId).onProgress(progresses::add));
+
+            //then : resumeFrom 이전 id 는 건드리지 않는다
+            assertThat(total).isEqualTo(2);
+            assertThat(progresses.get(0).getFromId()).isEqualTo(resumeId);
+            for (Member member : memberRepository.findAllById(ids)) {
+                assertThat(member.getAge()).isEqualTo(member.getId() >= resumeId ? 11 : 10);
+            }
+        } finally {
+            memberRepository.deleteAllInBatch(members);
+        }
+    }
+
+    @Test
+    public void parametersPerStatement(){
+        //given : 이름이 겹치는 파라미터(:plus, :plusTen)를 문장마다 따로 넣는다
+        List<Member> members = saveMembers("chunk", 3, 10);
+
+        try {
+            //when
+            chunkedUpdateRunner.run(ID_RANGE, List.of(
+                    ChunkStatement.of(AGE_PLUS, Map.of("plus", 1)),
+                    ChunkStatement.of("update Member m set m.age = m.age + :plusTen" +
+                            " where m.username = 'chunk' and m.id >= :fromId and m.id < :toId", Map.of("plusTen", 10))),
+                    ChunkOptions.of(2));
+
+            //then
+            assertThat(memberRepository.findAllById(idsOf(members))).extracting("age").containsOnly(21);
+        } finally {
+            memberRepository.deleteAllInBatch(members);
+        }
+    }
+
+    @Test
+    public void bulkAgePlusChunkedSkipsRowsCreatedAfterStart(){
+        //given
+        List<Member> members = saveMembers("chunkBulk", 3, 10000);
+        List<Member> created = new ArrayList<>();
+        List<ChunkProgress> progresses = new ArrayList<>();
+
+        try {
+            //when : 첫 청크가 커밋된 뒤에 새 회원이 들어온다
+            long total = memberRepository.bulkAgePlusChunked(10000, ChunkOptions.of(1000).onProgress(progress -> {
+                if (progresses.isEmpty()) {
+                    created.add(memberRepository.save(new Member("chunkBulk", 10000)));
+                }
+                progresses.add(progress);
+            }));
+
+            //then : 시작 시점의 max id 까지만 수정한다
+            assertThat(total).isEqualTo(3);
+            assertThat(progresses.get(progresses.size() - 1).getTotalRows()).isEqualTo(3);
+            assertThat(created.get(0).getId()).isGreaterThan(progresses.get(0).getMaxId());
+            assertThat(memberRepository.findAllById(idsOf(members))).extracting("age").containsOnly(10001);
+            assertThat(memberRepository.findById(created.get(0).getId()).get().getAge()).isEqualTo(10000);
+        } finally {
+            memberRepository.deleteAllInBatch(members);
+            memberRepository.deleteAllInBatch(created);
+        }
+    }
+
+    private List<Member> saveMembers(String username, int count, int age) {
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            members.add(memberRepository.save(new Member(username, age)));
+        }
+        return members;
+    }
+
+    private List<Long> idsOf(List<Member> members) {
+        return members.stream().map(Member::getId).sorted().collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,31 @@
+package spring.datajpa;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import spring.datajpa.dto.MemberDto;
+import spring.datajpa.service.CompactPageWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CompactPageWriterTest {
+
+    @Test
+    public void write() throws IOException {
+        CompactPageWriter writer = new CompactPageWriter(new ObjectMapper());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        List<MemberDto> rows = List.of(new MemberDto(1L, "member1", "teamA"), new MemberDto(2L, "member2", null));
+        long count = writer.write(out, PageRequest.of(0, 2), 5, rows.iterator());
+
+        assertThat(count).isEqualTo(2);
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "{\"page\":0,\"size\":2,\"total\":5,\"fields\":[\"id\",\"username\",\"teamName\"]," +
+                        "\"rows\":[[1,\"member1\",\"teamA\"],[2,\"member2\",null]]}");
+    }
+}
@@ -0,0 +1,82 @@
+package spring.datajpa;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import spring.datajpa.dto.MemberDto;
+import spring.datajpa.entity.Member;
+import spring.datajpa.repository.ArchivedMemberRepository;
+import spring.datajpa.repository.ChunkOptions;
+import spring.datajpa.repository.MemberRepository;
+import spring.datajpa.service.MemberArchiveService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 청크마다 커밋하므로 테스트 트랜잭션 없이 실행하고 끝나면 지운다.
+@SpringBootTest
+public class MemberArchiveServiceTest {
+
+    @Autowired
+    MemberArchiveService memberArchiveService;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    ArchivedMemberRepository archivedMemberRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void archive(){
+        //given : 2년 전에 마지막으로 수정된 회원 하나
+        Member cold = memberRepository.save(new Member("archive", 10));
+        Member hot = memberRepository.save(new Member("archive", 20));
+        jdbcTemplate.update("update member set last_modified_date = ? where member_id = ?",
+                LocalDateTime.now().minusYears(2), cold.getId());
+
+        try {
+            //when
+            long moved = memberArchiveService.archive(LocalDateTime.now().minusYears(1), ChunkOptions.of(1000));
+
+            //then : member 에서는 빠지고, 합친 조회에서는 보인다
+            assertThat(moved).isEqualTo(1);
+            assertThat(memberRepository.findById(cold.getId())).isEmpty();
+            assertThat(memberRepository.findById(hot.getId())).isPresent();
+            assertThat(memberArchiveService.findAnyById(cold.getId())).isPresent();
+
+            List<MemberDto> all = memberArchiveService.findAllByUsername("archive");
+            assertThat(all).extracting("id").containsExactly(cold.getId(), hot.getId());
+        } finally {
+            archivedMemberRepository.deleteAllByIdInBatch(List.of(cold.getId()));
+            memberRepository.deleteAllByIdInBatch(List.of(cold.getId(), hot.getId()));
+        }
+    }
+
+    @Test
+    public void reuseOptions(){
+        //given : 같은 옵션 객체로 두 번 실행
+        Member cold = memberRepository.save(new Member("archiveReuse", 10));
+        jdbcTemplate.update("update member set last_modified_date = ? where member_id = ?",
+                LocalDateTime.now().minusYears(2), cold.getId());
+        AtomicLong reported = new AtomicLong();
+        ChunkOptions options = ChunkOptions.of(1000).onProgress(progress -> reported.addAndGet(progress.getChunkRows()));
+
+        try {
+            //when
+            long first = memberArchiveService.archive(LocalDateTime.now().minusYears(1), options);
+            long second = memberArchiveService.archive(LocalDateTime.now().minusYears(1), options);
+
+            //then : 호출한 쪽 리스너는 그대로이고 한 번씩만 불린다
+            assertThat(first).isEqualTo(1);
+            assertThat(second).isEqualTo(0);
+            assertThat(reported.get()).isEqualTo(1);
+        } finally {
+            archivedMemberRepository.deleteAllByIdInBatch(List.of(cold.getId()));
+            memberRepository.deleteAllByIdInBatch(List.of(cold.getId()));
+        }
+    }
+}
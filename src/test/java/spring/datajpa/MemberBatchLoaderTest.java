@@ -0,0 +1,84 @@
+package spring.datajpa;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import spring.datajpa.cache.MemberBatchLoader;
+import spring.datajpa.dto.MemberDto;
+import spring.datajpa.entity.Member;
+import spring.datajpa.repository.MemberRepository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 묶은 조회는 다른 스레드에서 실행되므로 커밋된 데이터로 테스트한다. (테스트 트랜잭션 없음)
+@SpringBootTest(properties = "datajpa.member-batch.window=200ms")
+public class MemberBatchLoaderTest {
+
+    @Autowired
+    MemberBatchLoader loader;
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    public void coalesce(){
+        //given
+        Member member1 = memberRepository.save(new Member("batch1", 10));
+        Member member2 = memberRepository.save(new Member("batch2", 20));
+        long batchesBefore = loader.getMetrics().getBatches();
+
+        try {
+            //when : window 안에 들어온 조회는 쿼리 한 번으로 (같은 id 는 한 번만)
+            CompletableFuture<Optional<MemberDto>> find1 = loader.loadAsync(member1.getId());
+            CompletableFuture<Optional<MemberDto>> find2 = loader.loadAsync(member2.getId());
+            CompletableFuture<Optional<MemberDto>> find1Again = loader.loadAsync(member1.getId());
+            CompletableFuture<Optional<MemberDto>> notFound = loader.loadAsync(-1L);
+
+            //then
+            assertThat(find1.join().get().getUsername()).isEqualTo("batch1");
+            assertThat(find2.join().get().getUsername()).isEqualTo("batch2");
+            assertThat(find1Again.join().get().getUsername()).isEqualTo("batch1");
+            assertThat(notFound.join()).isEmpty();
+            assertThat(loader.getMetrics().getBatches() - batchesBefore).isEqualTo(1);
+        } finally {
+            memberRepository.deleteAllInBatch(List.of(member1, member2));
+        }
+    }
+
+    @Test
+    public void timeout(){
+        //given : window 가 timeout 보다 길어서 결과가 제때 오지 않는다
+        MemberBatchLoader slowLoader = new MemberBatchLoader(memberRepository, true,
+                Duration.ofSeconds(10), 100, Duration.ofMillis(50));
+
+        try {
+            //when, then : 무한히 기다리지 않고 실패
+            assertThatThrownBy(() -> slowLoader.load(1L))
+                    .isInstanceOf(IllegalStateException.class);
+            assertThat(slowLoader.getMetrics().getTimeouts()).isEqualTo(1);
+        } finally {
+            slowLoader.shutdown();
+        }
+    }
+
+    @Test
+    public void failFastAfterShutdown(){
+        //given
+        MemberBatchLoader stopped = new MemberBatchLoader(memberRepository, true,
+                Duration.ofSeconds(10), 100, Duration.ofSeconds(10));
+        CompletableFuture<Optional<MemberDto>> waiting = stopped.loadAsync(1L);
+
+        //when
+        stopped.shutdown();
+
+        //then : 대기 중이던 요청과 종료 후 요청 모두 바로 예외로 끝난다
+        assertThat(waiting).isCompletedExceptionally();
+        assertThatThrownBy(() -> stopped.load(2L)).isInstanceOf(RejectedExecutionException.class);
+    }
+}
@@ -0,0 +1,141 @@
+package spring.datajpa;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import spring.datajpa.entity.Member;
+import spring.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static spring.datajpa.QueryCountAssertions.assertQueryCount;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+public class MemberControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    EntityManagerFactory emf;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Test
+    public void conditionalGet() throws Exception {
+        //given
+        Member member = memberRepository.save(new Member("etag", 10));
+        em.flush();
+        String etag = mockMvc.perform(get("/members/{id}", member.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        //when, then : 같은 버전이면 304
+        mockMvc.perform(get("/members/{id}", member.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        // 수정되면 버전이 바뀌어서 200
+        memberRepository.findById(member.getId()).get().setAge(11);
+        em.flush();
+        mockMvc.perform(get("/members/{id}", member.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void conditionalGetList() throws Exception {
+        memberRepository.save(new Member("etagList", 10));
+        em.flush();
+        String etag = mockMvc.perform(get("/members").param("page", "0").param("size", "5"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/members").param("page", "0").param("size", "5").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        // 벌크 수정도 목록 버전을 올린다
+        memberRepository.bulkAgePlus(0);
+        mockMvc.perform(get("/members").param("page", "0").param("size", "5").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void badRequest() throws Exception {
+        //변조된 커서
+        mockMvc.perform(get("/members").param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+        //페이지 크기
+        mockMvc.perform(get("/members").param("after", "").param("size", "0"))
+                .andExpect(status().isBadRequest());
+        //빈 검색어, 범위를 벗어난 limit
+        mockMvc.perform(get("/members/search").param("prefix", ""))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/members/search").param("prefix", "a").param("limit", "1000"))
+                .andExpect(status().isBadRequest());
+    }
+
+    // 목록 버전은 커밋 후에 올라가므로 테스트 트랜잭션 없이
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void conditionalGetListAfterInsert() throws Exception {
+        String etag = mockMvc.perform(get("/members").param("page", "0").param("size", "5"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        Member member = memberRepository.save(new Member("etagInsert", 10));
+        try {
+            mockMvc.perform(get("/members").param("page", "0").param("size", "5").header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isOk());
+        } finally {
+            memberRepository.deleteAllInBatch(List.of(member));
+        }
+    }
+
+    // 도메인 클래스 컨버터(findById)가 2차 캐시에서 읽는지 보려면 커밋된 회원이어야 하므로 테스트 트랜잭션 없이
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void domainClassConverterUsesSecondLevelCache() throws Exception {
+        Member member = memberRepository.save(new Member("converter", 10));
+        emf.getCache().evict(Member.class);
+        try {
+            //처음은 db, 다음부터는 2차 캐시
+            assertQueryCount(1, () -> perform(get("/members2/{id}", member.getId())));
+            String etag = mockMvc.perform(get("/members2/{id}", member.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string("converter"))
+                    .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+            assertQueryCount(0, () -> perform(get("/members2/{id}", member.getId())));
+
+            //같은 버전이면 304
+            mockMvc.perform(get("/members2/{id}", member.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified());
+        } finally {
+            memberRepository.deleteAllInBatch(List.of(member));
+        }
+    }
+
+    private void perform(RequestBuilder request) {
+        try {
+            mockMvc.perform(request).andExpect(status().isOk());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package spring.datajpa;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import spring.datajpa.dto.UsernameMatch;
+import spring.datajpa.entity.Member;
+import spring.datajpa.entity.Team;
+import spring.datajpa.loader.LoadResult;
+import spring.datajpa.loader.MemberCsvLoader;
+import spring.datajpa.repository.MemberRepository;
+import spring.datajpa.repository.TeamRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 파티션마다 커밋하므로 테스트 트랜잭션 없이 실행하고 끝나면 지운다.
+@SpringBootTest(properties = "datajpa.loader.partition-size=64B")
+public class MemberCsvLoaderTest {
+
+    @Autowired
+    MemberCsvLoader loader;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void loadAndResume() throws IOException {
+        //given : 파티션 여러 개가 나오도록 작은 파티션 크기
+        StringBuilder csv = new StringBuilder("username,age,teamName\n");
+        for (int i = 0; i < 30; i++) {
+            csv.append("csvMember").append(i).append(',').append(i).append(',')
+                    .append(i % 2 == 0 ? "csvTeamA" : "csvTeamB").append('\n');
+        }
+        csv.append("csvMemberNoTeam,99,\n");
+        Path file = dir.resolve("members.csv");
+        Files.writeString(file, csv);
+
+        //when
+        LoadResult first = loader.load(file);
+        LoadResult second = loader.load(file); // 체크포인트가 있으므로 모두 건너뛴다
+
+        //then
+        List<UsernameMatch> loaded = memberRepository.findUsernameMatches("csvMember%", PageRequest.of(0, 100));
+        List<Team> teams = teamRepository.findByNameInOrderByIdAsc(List.of("csvTeamA", "csvTeamB"));
+        try {
+            assertThat(first.getPartitions()).isGreaterThan(1);
+            assertThat(first.getRows()).isEqualTo(31);
+            assertThat(loaded).hasSize(31);
+            assertThat(teams).hasSize(2);
+            assertThat(second.getRows()).isEqualTo(0);
+            assertThat(second.getSkippedPartitions()).isEqualTo(first.getPartitions());
+        } finally {
+            memberRepository.deleteAllByIdInBatch(loaded.stream().map(UsernameMatch::getId).collect(Collectors.toList()));
+            teamRepository.deleteAllInBatch(teams);
+        }
+    }
+
+    @Test
+    public void teamDeletedBetweenLoads() throws IOException {
+        //given : 첫 적재 후 팀과 회원을 지운다
+        Path first = dir.resolve("first.csv");
+        Files.writeString(first, "username,age,teamName\ncsvReload1,10,csvReloadTeam\n");
+        loader.load(first);
+        deleteLoaded("csvReload", "csvReloadTeam");
+
+        //when : 같은 팀 이름으로 다시 적재
+        Path second = dir.resolve("second.csv");
+        Files.writeString(second, "username,age,teamName\ncsvReload2,20,csvReloadTeam\n");
+        LoadResult result = loader.load(second);
+
+        //then : 지워진 팀 id 가 아니라 새로 만든 팀에 붙는다
+        try {
+            assertThat(result.getRows()).isEqualTo(1);
+            assertThat(memberRepository.findMemberDtoByUsername("csvReload2"))
+                    .extracting("teamName").containsExactly("csvReloadTeam");
+        } finally {
+            deleteLoaded("csvReload", "csvReloadTeam");
+        }
+    }
+
+    @Test
+    public void rejectChangedFile() throws IOException {
+        //given : 체크포인트를 남긴 뒤 같은 크기로 내용이 바뀐 파일
+        Path file = dir.resolve("changed.csv");
+        Files.writeString(file, "username,age,teamName\ncsvChanged1,10,\n");
+        loader.load(file);
+        Files.writeString(file, "username,age,teamName\ncsvChanged2,20,\n");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 60_000));
+
+        //when, then
+        try {
+            assertThatThrownBy(() -> loader.load(file))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("체크포인트");
+        } finally {
+            deleteLoaded("csvChanged", null);
+        }
+    }
+
+    @Test
+    public void inFlightPartitionIsCheckpointedWhenAnotherFails() throws IOException {
+        //given : 파티션 0(csvFail*)은 저장하다 실패하고, 파티션 1(csvSlow*)은 실패가 난 뒤에야 커밋한다
+        //        한 줄 13바이트, 파티션 64B -> 5줄씩 한 파티션
+        StringBuilder csv = new StringBuilder("username,age,teamName\n");
+        for (int i = 0; i < 5; i++) {
+            csv.append("csvFail").append(i).append(",10,\n");
+        }
+        for (int i = 0; i < 5; i++) {
+            csv.append("csvSlow").append(i).append(",10,\n");
+        }
+        Path file = dir.resolve("partial.csv");
+        Files.writeString(file, csv);
+
+        try {
+            //when
+            assertThatThrownBy(() -> loader.load(file)).isInstanceOf(IllegalStateException.class);
+
+            //then : 진행 중이던 파티션은 커밋되고 체크포인트에도 남는다
+            assertThat(memberRepository.findUsernameMatches("csvSlow%", PageRequest.of(0, 100))).hasSize(5);
+            assertThat(Files.readAllLines(dir.resolve("partial.csv.checkpoint")).stream().skip(1)).containsExactly("1");
+
+            // 다시 실행해도 커밋된 파티션은 다시 넣지 않는다
+            assertThatThrownBy(() -> loader.load(file)).isInstanceOf(IllegalStateException.class);
+            assertThat(memberRepository.findUsernameMatches("csvSlow%", PageRequest.of(0, 100))).hasSize(5);
+            assertThat(memberRepository.findUsernameMatches("csvFail%", PageRequest.of(0, 100))).isEmpty();
+        } finally {
+            deleteLoaded("csvSlow", null);
+        }
+    }
+
+    private void deleteLoaded(String usernamePrefix, String teamName) {
+        List<UsernameMatch> loaded = memberRepository.findUsernameMatches(usernamePrefix + "%", PageRequest.of(0, 100));
+        memberRepository.deleteAllByIdInBatch(loaded.stream().map(UsernameMatch::getId).collect(Collectors.toList()));
+        if (teamName != null) {
+            teamRepository.deleteAllInBatch(teamRepository.findByNameInOrderByIdAsc(List.of(teamName)));
+        }
+    }
+
+    // csvFail* 회원 저장은 실패시키고, csvSlow* 회원 저장은 그 실패가 난 뒤까지 트랜잭션 안에서 붙잡아 둔다.
+    // 붙잡는 동안 인터럽트되어도 멈추지 않는다. (JDBC 호출처럼 인터럽트에 반응하지 않는 작업)
+    @Aspect
+    static class PartitionFailureInjector {
+
+        private final CountDownLatch failed = new CountDownLatch(1);
+
+        @Around("execution(* spring.datajpa.repository.BatchInserter.insert(..)) && args(entities)")
+        public Object insert(ProceedingJoinPoint joinPoint, Collection<?> entities) throws Throwable {
+            if (hasUsername(entities, "csvFail")) {
+                failed.countDown();
+                throw new IllegalArgumentException("injected partition failure");
+            }
+            Object result = joinPoint.proceed();
+            if (hasUsername(entities, "csvSlow")) {
+                boolean interrupted = false;
+                try {
+                    failed.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+                try {
+                    Thread.sleep(300); // 실패한 쪽이 load 를 끝내러 갈 시간
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return result;
+        }
+
+        private boolean hasUsername(Collection<?> entities, String prefix) {
+            return entities.stream().anyMatch(entity -> entity instanceof Member
+                    && ((Member) entity).getUsername().startsWith(prefix));
+        }
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        PartitionFailureInjector partitionFailureInjector() {
+            return new PartitionFailureInjector();
+        }
+    }
+}
@@ -4,11 +4,15 @@ import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import spring.datajpa.entity.Member;
 import spring.datajpa.repository.MemberJpaRepository;
+import spring.datajpa.repository.MemberRepository;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -18,6 +22,8 @@ public class MemberJpaRepositoryTest {
 
     @Autowired
     MemberJpaRepository memberJpaRepository;
+    @Autowired
+    MemberRepository memberRepository;
 
     @Test
     public void testMember(){
@@ -113,4 +119,30 @@ public class MemberJpaRepositoryTest {
 
         assertThat(resultCount).isEqualTo(3);
     }
+
+    // StatelessSession 은 자기 커넥션으로 읽으므로 커밋된 데이터만 보인다. 테스트 트랜잭션 없이 실행
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void scanAll(){
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            members.add(new Member("scan" + i, i));
+        }
+        memberJpaRepository.bulkInsert(members);
+
+        List<Member> scanned = new ArrayList<>();
+        long count = memberJpaRepository.scanAll(member -> {
+            if (member.getUsername().startsWith("scan")) {
+                scanned.add(member);
+            }
+        });
+
+        try {
+            assertThat(count).isGreaterThanOrEqualTo(10);
+            assertThat(scanned).extracting("username")
+                    .containsExactlyElementsOf(members.stream().map(Member::getUsername).collect(Collectors.toList()));
+        } finally {
+            memberRepository.deleteAllInBatch(members);
+        }
+    }
 }
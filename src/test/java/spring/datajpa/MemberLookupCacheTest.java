@@ -0,0 +1,161 @@
+package spring.datajpa;
+
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring.datajpa.cache.MemberLookupCache;
+import spring.datajpa.entity.Member;
+import spring.datajpa.event.MemberBulkUpdatedEvent;
+import spring.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static spring.datajpa.QueryCountAssertions.assertQueryCount;
+
+// 캐시는 커밋된 값만 담으므로 테스트 트랜잭션 없이 실행하고 끝나면 지운다.
+// 묶음 조회는 다른 스레드에서 실행되어 쿼리 수에 안 잡히므로 끈다.
+@SpringBootTest(properties = "datajpa.member-batch.enabled=false")
+@RecordApplicationEvents
+public class MemberLookupCacheTest {
+
+    @Autowired
+    MemberLookupCache memberLookupCache;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    LoadInterceptor loadInterceptor;
+    @Autowired
+    ApplicationEvents events;
+
+    @PersistenceContext
+    EntityManager em;
+
+    List<Member> saved = new ArrayList<>();
+
+    @AfterEach
+    public void cleanUp(){
+        memberLookupCache.evictAll();
+        memberRepository.deleteAllInBatch(saved);
+    }
+
+    @Test
+    public void cacheAndEvict(){
+        //given
+        Member member = save(new Member("cached", 10));
+
+        //when : 처음 한 번만 db 조회
+        assertQueryCount(1, () -> memberLookupCache.find(member.getId()));
+        assertQueryCount(0, () -> memberLookupCache.find(member.getId()));
+
+        // 수정되면 캐시에서 빠진다
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                memberRepository.findById(member.getId()).get().setUsername("changed"));
+
+        //then
+        assertThat(memberLookupCache.find(member.getId()).get().getUsername()).isEqualTo("changed");
+    }
+
+    @Test
+    public void notCachedInsideTransaction(){
+        //given
+        Member member = save(new Member("committed", 10));
+
+        //when : 롤백될 트랜잭션 안에서 수정 후 조회
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            memberRepository.findById(member.getId()).get().setUsername("rolledBack");
+            em.flush();
+            assertThat(memberLookupCache.find(member.getId()).get().getUsername()).isEqualTo("rolledBack");
+            status.setRollbackOnly();
+        });
+
+        //then : 커밋되지 않은 값은 캐시에 남지 않는다
+        assertQueryCount(1, () ->
+                assertThat(memberLookupCache.find(member.getId()).get().getUsername()).isEqualTo("committed"));
+    }
+
+    @Test
+    public void bulkUpdateEvictsAll(){
+        Member member = save(new Member("bulkCached", 10));
+        memberLookupCache.find(member.getId());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> memberRepository.bulkAgePlus(0));
+
+        assertQueryCount(1, () -> memberLookupCache.find(member.getId()));
+    }
+
+    @Test
+    public void bulkUpdatePublishedOnce(){
+        //when : default bulkAgePlus(int) 는 프록시를 통해 bulkAgePlus(int, now) 를 다시 부른다
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> memberRepository.bulkAgePlus(10000));
+
+        //then : 이벤트는 바깥 메소드 이름으로 한 번만
+        assertThat(events.stream(MemberBulkUpdatedEvent.class))
+                .extracting(MemberBulkUpdatedEvent::getOperation)
+                .containsExactly("bulkAgePlus");
+    }
+
+    @Test
+    public void evictDuringLoadIsNotCached(){
+        //given : db 에서 읽은 직후, 캐시에 넣기 전에 무효화가 들어온다
+        Member member = save(new Member("evictedDuringLoad", 10));
+        long staleSkipsBefore = memberLookupCache.getStaleSkipCount();
+        loadInterceptor.afterNextLoad(() -> memberLookupCache.evict(member.getId()));
+
+        //when
+        memberLookupCache.find(member.getId());
+
+        //then : 읽은 값은 버리고 다음 조회는 다시 db 로
+        assertThat(memberLookupCache.getStaleSkipCount() - staleSkipsBefore).isEqualTo(1);
+        assertQueryCount(1, () -> memberLookupCache.find(member.getId()));
+        assertQueryCount(0, () -> memberLookupCache.find(member.getId()));
+    }
+
+    private Member save(Member member) {
+        saved.add(memberRepository.save(member));
+        return member;
+    }
+
+    // 준비된 동작이 있으면 MemberRepository.findMemberDtoById 가 끝난 직후에 한 번 실행한다.
+    @Aspect
+    static class LoadInterceptor {
+
+        private final AtomicReference<Runnable> action = new AtomicReference<>();
+
+        void afterNextLoad(Runnable runnable) {
+            action.set(runnable);
+        }
+
+        @AfterReturning("target(spring.datajpa.repository.MemberRepository) && execution(* findMemberDtoById(..))")
+        public void afterLoad() {
+            Runnable runnable = action.getAndSet(null);
+            if (runnable != null) {
+                runnable.run();
+            }
+        }
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        LoadInterceptor loadInterceptor() {
+            return new LoadInterceptor();
+        }
+    }
+}
@@ -8,7 +8,10 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.test.annotation.Rollback;
+import spring.datajpa.dto.CursorPage;
+import spring.datajpa.dto.MemberCursor;
 import spring.datajpa.dto.MemberDto;
+import spring.datajpa.dto.UsernameMatch;
 import spring.datajpa.entity.Member;
 import spring.datajpa.entity.Team;
 import spring.datajpa.repository.MemberRepository;
@@ -17,11 +20,15 @@ import spring.datajpa.repository.TeamRepository;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.transaction.Transactional;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static spring.datajpa.QueryCountAssertions.assertQueryCount;
 
 @SpringBootTest
 @Transactional
@@ -149,6 +156,27 @@ public class MemberRepositoryTest {
         }
     }
 
+    @Test
+    public void streamMemberDto(){
+        Team team = new Team("streamTeam");
+        teamRepository.save(team);
+        memberRepository.save(new Member("stream1", 10, team));
+        memberRepository.save(new Member("stream2", 20));
+        em.flush();
+        em.clear();
+
+        // 스트림은 반드시 닫아준다
+        List<MemberDto> result;
+        try (Stream<MemberDto> stream = memberRepository.streamMemberDto()) {
+            result = stream.filter(dto -> dto.getUsername().startsWith("stream"))
+                    .collect(Collectors.toList());
+        }
+
+        assertThat(result).extracting("username").containsExactly("stream1", "stream2");
+        assertThat(result.get(0).getTeamName()).isEqualTo("streamTeam");
+        assertThat(em.unwrap(org.hibernate.Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
     @Test
     public void findByNames(){
 
@@ -169,6 +197,36 @@ public class MemberRepositoryTest {
         }
     }
 
+    @Test
+    public void findByNamesChunked(){
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            names.add("chunk" + i);
+        }
+        memberRepository.save(new Member("chunk1", 10));
+        memberRepository.save(new Member("chunk2400", 10));
+
+        // 1000 개씩 세 번 나눠서 조회 후 합친다
+        List<Member> result = memberRepository.findByNamesChunked(names);
+
+        assertThat(result).extracting("username").containsExactlyInAnyOrder("chunk1", "chunk2400");
+    }
+
+    @Test
+    public void findUsernameMatches(){
+        memberRepository.save(new Member("prefix_b", 10));
+        memberRepository.save(new Member("prefix_a", 10));
+        memberRepository.save(new Member("prefixXa", 10));
+        memberRepository.save(new Member("other", 10));
+
+        // _ 는 이스케이프되어 와일드카드가 아니다. username 순으로 상위 K개
+        List<UsernameMatch> result = memberRepository.findUsernameMatches("prefix\\_%", PageRequest.of(0, 10));
+        List<UsernameMatch> top1 = memberRepository.findUsernameMatches("prefix%", PageRequest.of(0, 1));
+
+        assertThat(result).extracting("username").containsExactly("prefix_a", "prefix_b");
+        assertThat(top1).extracting("username").containsExactly("prefixXa");
+    }
+
     @Test
     public void returnType(){
         Member m1 = new Member("AAA1", 10);
@@ -241,6 +299,93 @@ public class MemberRepositoryTest {
         assertThat(page.hasNext()).isTrue(); // 다음 페이지 있는지
     }
 
+    @Test
+    public void keysetPaging(){
+        //given
+        memberRepository.save(new Member("keyset1", 30));
+        memberRepository.save(new Member("keyset2", 30));
+        memberRepository.save(new Member("keyset3", 30));
+        memberRepository.save(new Member("keyset4", 30));
+        memberRepository.save(new Member("keyset5", 31));
+
+        //when : 커서를 따라가며 두 페이지 조회
+        CursorPage<Member> first = memberRepository.findByAgeKeyset(30, null, 3);
+        CursorPage<Member> second = memberRepository.findByAgeKeyset(30, MemberCursor.decode(first.getNextCursor()), 3);
+
+        //then
+        assertThat(first.getContent()).extracting("username")
+                .containsExactly("keyset1", "keyset2", "keyset3");
+        assertThat(first.isHasNext()).isTrue();
+        assertThat(second.getContent()).extracting("username")
+                .containsExactly("keyset4");
+        assertThat(second.isHasNext()).isFalse();
+    }
+
+    @Test
+    public void keysetPagingWithNullUsername(){
+        //given : username 이 null 인 회원은 맨 앞에 id 순으로
+        Member null1 = memberRepository.save(new Member(null, 77));
+        Member null2 = memberRepository.save(new Member(null, 77));
+        Member named = memberRepository.save(new Member("keysetNull", 77));
+
+        //when : 한 명씩 커서를 따라간다 (커서는 문자열로 왕복)
+        List<Long> ids = new ArrayList<>();
+        MemberCursor after = null;
+        for (int i = 0; i < 5; i++) {
+            CursorPage<Member> page = memberRepository.findByAgeKeyset(77, after, 1);
+            page.getContent().forEach(member -> ids.add(member.getId()));
+            if (!page.isHasNext()) {
+                break;
+            }
+            after = MemberCursor.decode(page.getNextCursor());
+        }
+
+        //then : 빠지거나 겹치는 회원 없이
+        assertThat(ids).containsExactly(null1.getId(), null2.getId(), named.getId());
+        assertThat(MemberCursor.decode(MemberCursor.of(null1).encode()).getUsername()).isNull();
+        assertThat(MemberCursor.decode(new MemberCursor("null", 1L).encode()).getUsername()).isEqualTo("null");
+    }
+
+    @Test
+    public void pagingDto(){
+        //given
+        Team team = new Team("pagingTeam");
+        teamRepository.save(team);
+        memberRepository.save(new Member("dtoPage1", 10, team));
+        memberRepository.save(new Member("dtoPage2", 10, team));
+        memberRepository.save(new Member("dtoPage3", 10));
+        em.flush();
+        em.clear();
+
+        PageRequest pageRequest = PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "id"));
+
+        //when
+        Page<MemberDto> page = memberRepository.findMemberDtoPage(pageRequest);
+
+        //then : 엔티티는 영속성 컨텍스트에 올라오지 않는다
+        assertThat(page.getContent()).extracting("username").containsExactly("dtoPage3", "dtoPage2");
+        assertThat(page.getContent().get(1).getTeamName()).isEqualTo("pagingTeam");
+        assertThat(page.getTotalElements()).isGreaterThanOrEqualTo(3);
+        assertThat(em.unwrap(org.hibernate.Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+    @Test
+    public void bulkInsert(){
+        //given
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            members.add(new Member("bulk" + i, i));
+        }
+
+        //when : batch_size 단위로 flush/clear 된다
+        int inserted = memberRepository.bulkInsert(members);
+
+        //then
+        assertThat(inserted).isEqualTo(120);
+        assertThat(em.contains(members.get(0))).isFalse();
+        assertThat(memberRepository.findListByUsername("bulk119")).hasSize(1);
+    }
+
     @Test
     public void bulkUpdate(){
 
@@ -293,6 +438,49 @@ public class MemberRepositoryTest {
         }
     }
 
+    @Test
+    public void queryCount(){
+        //given
+        Team teamA = new Team("countTeamA");
+        Team teamB = new Team("countTeamB");
+        teamRepository.save(teamA);
+        teamRepository.save(teamB);
+        memberRepository.save(new Member("count1", 10, teamA));
+        memberRepository.save(new Member("count2", 10, teamB));
+        em.flush();
+        em.clear();
+
+        // 지연 로딩 : member 1번 + team 프록시들을 IN 쿼리 1번 (batch fetch, N+1 아님)
+        assertQueryCount(2, () -> memberRepository.findByNames(Arrays.asList("count1", "count2"))
+                .forEach(member -> member.getTeam().getName()));
+        em.clear();
+        em.getEntityManagerFactory().getCache().evictAll(); // 2차 캐시에 올라간 team 제거
+
+        // fetch join : member + team 한 번에
+        assertQueryCount(1, () -> memberRepository.findMemberFetchJoin().stream()
+                .filter(member -> member.getTeam() != null)
+                .forEach(member -> member.getTeam().getName()));
+    }
+
+    @Test
+    public void batchFetchCollection(){
+        //given
+        Team teamA = new Team("batchTeamA");
+        Team teamB = new Team("batchTeamB");
+        teamRepository.save(teamA);
+        teamRepository.save(teamB);
+        memberRepository.save(new Member("batch1", 10, teamA));
+        memberRepository.save(new Member("batch2", 10, teamA));
+        memberRepository.save(new Member("batch3", 10, teamB));
+        em.flush();
+        em.clear();
+        em.getEntityManagerFactory().getCache().evictAll();
+
+        // team 1번 + 두 팀의 members 를 IN 쿼리 1번
+        assertQueryCount(2, () -> teamRepository.findAllById(Arrays.asList(teamA.getId(), teamB.getId()))
+                .forEach(team -> team.getMembers().size()));
+    }
+
     @Test
     public void queryHint(){
         // given
@@ -0,0 +1,149 @@
+package spring.datajpa;
+
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Before;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import spring.datajpa.dto.CursorPage;
+import spring.datajpa.dto.MemberCursor;
+import spring.datajpa.dto.MemberDto;
+import spring.datajpa.entity.Member;
+import spring.datajpa.entity.Team;
+import spring.datajpa.repository.MemberRepository;
+import spring.datajpa.repository.TeamRepository;
+import spring.datajpa.service.MemberService;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// 서비스가 여는 트랜잭션을 봐야 하므로 테스트 트랜잭션 없이 실행하고 끝나면 지운다. (application.yml: open-in-view false)
+@SpringBootTest
+public class MemberServiceTest {
+
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    TransactionProbe transactionProbe;
+
+    List<Member> savedMembers = new ArrayList<>();
+    List<Team> savedTeams = new ArrayList<>();
+
+    @AfterEach
+    public void cleanUp(){
+        memberRepository.deleteAllInBatch(savedMembers);
+        memberRepository.deleteAllInBatch(memberRepository.findListByUsername("serviceJoin"));
+        teamRepository.deleteAllInBatch(savedTeams);
+        transactionProbe.clear();
+    }
+
+    @Test
+    public void readsRunInReadOnlyTransaction(){
+        //when
+        memberService.findPage(PageRequest.of(0, 5));
+        memberService.findAfter(null, 5);
+
+        //then : 레포지토리 호출 시점에 서비스의 읽기 전용 트랜잭션 안이고, flush 하지 않는다
+        assertThat(transactionProbe.seen).containsOnlyKeys("findMemberDtoPage", "findMemberKeyset");
+        assertThat(transactionProbe.seen.values()).allSatisfy(state -> {
+            assertThat(state.active).isTrue();
+            assertThat(state.readOnly).isTrue();
+            assertThat(state.flushMode).isEqualTo(FlushMode.MANUAL);
+        });
+    }
+
+    @Test
+    public void writesOverrideReadOnly(){
+        //given
+        Member member = memberRepository.save(new Member("serviceWrite", 10));
+        savedMembers.add(member);
+
+        //when
+        memberService.changeAge(member.getId(), 30);
+        int joined = memberService.join(List.of(new Member("serviceJoin", 1), new Member("serviceJoin", 2)));
+
+        //then : 클래스의 readOnly 를 덮어써서 반영된다
+        assertThat(memberRepository.findById(member.getId()).get().getAge()).isEqualTo(30);
+        assertThat(joined).isEqualTo(2);
+        assertThat(memberRepository.findListByUsername("serviceJoin")).hasSize(2);
+    }
+
+    @Test
+    public void findAfterMapsTeamName(){
+        //given
+        Team team = teamRepository.save(new Team("serviceTeam"));
+        savedTeams.add(team);
+        savedMembers.add(memberRepository.save(new Member("serviceAfter", 10, team)));
+
+        //when : 컨트롤러처럼 트랜잭션 밖에서 받은 dto (지연 로딩 불가)
+        CursorPage<MemberDto> page = memberService.findAfter(new MemberCursor("serviceAfter", 0L), 1);
+
+        //then
+        assertThat(page.getContent()).extracting("username", "teamName")
+                .containsExactly(tuple("serviceAfter", "serviceTeam"));
+    }
+
+    // 레포지토리 프록시(자체 트랜잭션)보다 바깥에서 호출 시점의 트랜잭션 상태를 기록한다.
+    @Aspect
+    static class TransactionProbe {
+
+        private final EntityManager em;
+        final Map<String, TransactionState> seen = new ConcurrentHashMap<>();
+
+        TransactionProbe(EntityManager em) {
+            this.em = em;
+        }
+
+        @Before("target(spring.datajpa.repository.MemberRepository)" +
+                " && (execution(* findMemberDtoPage(..)) || execution(* findMemberKeyset(..)))")
+        public void record(JoinPoint joinPoint) {
+            boolean active = TransactionSynchronizationManager.isActualTransactionActive();
+            seen.put(joinPoint.getSignature().getName(), new TransactionState(active,
+                    TransactionSynchronizationManager.isCurrentTransactionReadOnly(),
+                    active ? em.unwrap(Session.class).getHibernateFlushMode() : null));
+        }
+
+        void clear() {
+            seen.clear();
+        }
+    }
+
+    static class TransactionState {
+        final boolean active;
+        final boolean readOnly;
+        final FlushMode flushMode;
+
+        TransactionState(boolean active, boolean readOnly, FlushMode flushMode) {
+            this.active = active;
+            this.readOnly = readOnly;
+            this.flushMode = flushMode;
+        }
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        TransactionProbe transactionProbe(EntityManager em) {
+            return new TransactionProbe(em);
+        }
+    }
+}
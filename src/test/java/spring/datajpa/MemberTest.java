@@ -13,6 +13,8 @@ import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 @SpringBootTest
 public class MemberTest {
 
@@ -54,6 +56,27 @@ public class MemberTest {
         }
     }
 
+    // Team.members 는 바이트코드 향상(association management)이 맞춘다. (-PnoEnhance 나 IDE 자체 빌드에서는 깨진다)
+    @Test
+    public void bidirectionalAssociation(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+
+        // 생성자
+        Member member1 = new Member("member1", 10, teamA);
+        assertThat(teamA.getMembers()).containsExactly(member1);
+
+        // setTeam
+        Member member2 = new Member("member2", 20);
+        member2.setTeam(teamA);
+        assertThat(teamA.getMembers()).containsExactly(member1, member2);
+
+        // 팀을 옮기면 이전 팀에서 빠진다
+        member2.setTeam(teamB);
+        assertThat(teamA.getMembers()).containsExactly(member1);
+        assertThat(teamB.getMembers()).containsExactly(member2);
+    }
+
     @Test
     @Transactional
     @Rollback
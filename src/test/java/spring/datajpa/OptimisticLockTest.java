@@ -0,0 +1,136 @@
+package spring.datajpa;
+
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring.datajpa.entity.Member;
+import spring.datajpa.entity.Team;
+import spring.datajpa.repository.MemberRepository;
+import spring.datajpa.repository.TeamRepository;
+import spring.datajpa.retry.RetryMetrics;
+import spring.datajpa.service.MemberService;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 재시도마다 새 트랜잭션이 열려야 하므로 테스트 트랜잭션 없이 실행하고 끝나면 지운다.
+@SpringBootTest
+public class OptimisticLockTest {
+
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    RetryMetrics retryMetrics;
+    @Autowired
+    ConflictInjector conflictInjector;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void retryOnConflict(){
+        //given : 첫 번째 시도가 회원을 읽은 직후 다른 트랜잭션이 먼저 수정한다
+        Member member = memberRepository.save(new Member("retry", 10));
+        long invocationsBefore = retryMetrics.getInvocations();
+        long conflictsBefore = retryMetrics.getConflicts();
+        long exhaustedBefore = retryMetrics.getExhausted();
+        conflictInjector.conflictOnNextLoads(1);
+
+        try {
+            //when
+            memberService.changeAge(member.getId(), 20);
+
+            //then : 한 번 충돌 후 다시 읽어서 성공
+            assertThat(conflictInjector.getLoads()).isEqualTo(2);
+            assertThat(retryMetrics.getInvocations() - invocationsBefore).isEqualTo(1);
+            assertThat(retryMetrics.getConflicts() - conflictsBefore).isEqualTo(1);
+            assertThat(retryMetrics.getExhausted() - exhaustedBefore).isEqualTo(0);
+
+            Member findMember = memberRepository.findById(member.getId()).get();
+            assertThat(findMember.getAge()).isEqualTo(20);
+            assertThat(findMember.getVersion()).isEqualTo(2); // 끼어든 수정 1 + changeAge 1
+        } finally {
+            conflictInjector.conflictOnNextLoads(0);
+            memberRepository.deleteAllInBatch(List.of(member));
+        }
+    }
+
+    @Test
+    public void joinTeamDoesNotBumpTeamVersion(){
+        //given
+        Team team = teamRepository.save(new Team("optimisticTeam"));
+        Long teamVersion = team.getVersion();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        try {
+            //when : 초기화된 team.members 에 회원이 추가되어도
+            tx.executeWithoutResult(status -> {
+                Team findTeam = teamRepository.findById(team.getId()).get();
+                findTeam.getMembers().size();
+                memberRepository.save(new Member("optimisticMember", 10, findTeam));
+            });
+
+            //then : 팀 version 은 그대로
+            assertThat(teamRepository.findById(team.getId()).get().getVersion()).isEqualTo(teamVersion);
+        } finally {
+            memberRepository.deleteAllInBatch(memberRepository.findListByUsername("optimisticMember"));
+            teamRepository.deleteAllInBatch(List.of(team));
+        }
+    }
+
+    // MemberRepository.findById 가 끝난 직후 별도 트랜잭션으로 같은 회원의 version 을 올려서 충돌을 만든다.
+    @Aspect
+    static class ConflictInjector {
+
+        private final JdbcTemplate jdbcTemplate;
+        private final TransactionTemplate newTx;
+        private final AtomicInteger remaining = new AtomicInteger();
+        private final AtomicInteger loads = new AtomicInteger();
+
+        ConflictInjector(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+            this.jdbcTemplate = jdbcTemplate;
+            this.newTx = new TransactionTemplate(transactionManager);
+            this.newTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        }
+
+        void conflictOnNextLoads(int count) {
+            remaining.set(count);
+            loads.set(0);
+        }
+
+        int getLoads() {
+            return loads.get();
+        }
+
+        @AfterReturning("target(spring.datajpa.repository.MemberRepository) && execution(* findById(..)) && args(id)")
+        public void afterLoad(Object id) {
+            loads.incrementAndGet();
+            if (remaining.getAndUpdate(count -> Math.max(count - 1, 0)) > 0) {
+                newTx.executeWithoutResult(status -> jdbcTemplate.update(
+                        "update member set version = version + 1 where member_id = ?", id));
+            }
+        }
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        ConflictInjector conflictInjector(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+            return new ConflictInjector(jdbcTemplate, transactionManager);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package spring.datajpa;
+
+import spring.datajpa.monitoring.QueryCount;
+import spring.datajpa.monitoring.QueryCounter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 테스트에서 "이 호출은 쿼리를 정확히 N번 날린다"를 검증하기 위한 도우미
+public class QueryCountAssertions {
+
+    public static QueryCount countQueries(Runnable work) {
+        QueryCount count = QueryCounter.begin();
+        try {
+            work.run();
+        } finally {
+            QueryCounter.end(count);
+        }
+        return count;
+    }
+
+    public static void assertQueryCount(long expected, Runnable work) {
+        QueryCount count = countQueries(work);
+        assertThat(count.getStatements())
+                .as("실행된 쿼리 수 %s", count.getSqlCounts())
+                .isEqualTo(expected);
+    }
+}
@@ -0,0 +1,43 @@
+package spring.datajpa;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 로컬 인메모리 H2 두 개를 primary / replica 대역으로 사용
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+        "datajpa.datasource.replica.url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1"
+})
+public class ReplicationRoutingDataSourceTest {
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Test
+    public void routeByReadOnly(){
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        String writeDb = readWrite.execute(status -> currentDatabase());
+        String readDb = readOnly.execute(status -> currentDatabase());
+
+        assertThat(writeDb).isEqualToIgnoringCase("primary");
+        assertThat(readDb).isEqualToIgnoringCase("replica");
+    }
+
+    private String currentDatabase() {
+        return (String) em.createNativeQuery("select database()").getSingleResult();
+    }
+}
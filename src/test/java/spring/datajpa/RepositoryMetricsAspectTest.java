@@ -0,0 +1,64 @@
+package spring.datajpa;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import spring.datajpa.entity.Member;
+import spring.datajpa.repository.MemberRepository;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+public class RepositoryMetricsAspectTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MeterRegistry registry;
+
+    @Test
+    public void recordTimerAndRows(){
+        //given
+        memberRepository.save(new Member("metrics", 10));
+        memberRepository.save(new Member("metrics", 20));
+        long timerCountBefore = timerCount();
+        long summaryCountBefore = summaryCount();
+        double rowsBefore = summaryTotal();
+
+        //when
+        memberRepository.findListByUsername("metrics");
+
+        //then : 실행 시간 1건, row 수 2
+        Timer timer = registry.find("repository.invocations")
+                .tags("method", "findListByUsername", "outcome", "success").timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count() - timerCountBefore).isEqualTo(1);
+        assertThat(timer.totalTime(TimeUnit.NANOSECONDS)).isPositive();
+
+        assertThat(summaryCount() - summaryCountBefore).isEqualTo(1);
+        assertThat(summaryTotal() - rowsBefore).isEqualTo(2.0);
+    }
+
+    private long timerCount() {
+        Timer timer = registry.find("repository.invocations")
+                .tags("method", "findListByUsername", "outcome", "success").timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private long summaryCount() {
+        DistributionSummary summary = registry.find("repository.rows").tag("method", "findListByUsername").summary();
+        return summary == null ? 0 : summary.count();
+    }
+
+    private double summaryTotal() {
+        DistributionSummary summary = registry.find("repository.rows").tag("method", "findListByUsername").summary();
+        return summary == null ? 0 : summary.totalAmount();
+    }
+}
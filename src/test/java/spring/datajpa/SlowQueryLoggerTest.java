@@ -0,0 +1,131 @@
+package spring.datajpa;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import spring.datajpa.entity.Member;
+import spring.datajpa.monitoring.SlowQueryLogger;
+import spring.datajpa.repository.MemberRepository;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// show_sql / p6spy 를 뺀 뒤 sql 로그는 SlowQueryLogger 하나뿐이다.
+// 기준 시간을 0 으로 두고 실제 쿼리도 찍히는지 본다. 나머지는 ExecutionInfo/QueryInfo 를 직접 만들어 넘긴다.
+@SpringBootTest(properties = "datajpa.slow-query.threshold-millis=0")
+@Transactional
+public class SlowQueryLoggerTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    ListAppender<ILoggingEvent> appender;
+    Logger logger;
+    Level previousLevel;
+
+    @BeforeEach
+    public void captureLog(){
+        logger = (Logger) LoggerFactory.getLogger(SlowQueryLogger.class);
+        previousLevel = logger.getLevel();
+        logger.setLevel(Level.INFO);
+        appender = new ListAppender<>();
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    public void releaseLog(){
+        logger.detachAppender(appender);
+        logger.setLevel(previousLevel);
+    }
+
+    @Test
+    public void belowThreshold() throws Exception {
+        new SlowQueryLogger(200, 0.0).afterQuery(execution(199, 1), List.of(updateQuery()));
+
+        assertThat(appender.list).isEmpty();
+    }
+
+    @Test
+    public void aboveThreshold() throws Exception {
+        new SlowQueryLogger(200, 0.0).afterQuery(execution(250, 3), List.of(updateQuery()));
+
+        assertThat(appender.list).hasSize(1);
+        ILoggingEvent event = appender.list.get(0);
+        assertThat(event.getLevel()).isEqualTo(Level.WARN);
+        assertThat(event.getFormattedMessage())
+                .isEqualTo("[느린 쿼리] 250ms caller=- rows=3 update member set age = ? where member_id = ? params=[11,7]");
+    }
+
+    @Test
+    public void batchRows() throws Exception {
+        ExecutionInfo execution = execution(300, null);
+        execution.setBatch(true);
+        execution.setBatchSize(3);
+        execution.setResult(new int[]{1, 1, 1});
+
+        new SlowQueryLogger(200, 0.0).afterQuery(execution, List.of(new QueryInfo("insert into member values (?)")));
+
+        assertThat(appender.list).extracting(ILoggingEvent::getFormattedMessage)
+                .containsExactly("[느린 쿼리] 300ms caller=- rows=3 batch=3 insert into member values (?)");
+    }
+
+    @Test
+    public void sampling() throws Exception {
+        //샘플 비율 0 이면 빠른 쿼리는 남기지 않는다
+        new SlowQueryLogger(200, 0.0).afterQuery(execution(10, 1), List.of(updateQuery()));
+        assertThat(appender.list).isEmpty();
+
+        //샘플 비율 1 이면 모두 info 로
+        SlowQueryLogger sampleAll = new SlowQueryLogger(200, 1.0);
+        sampleAll.afterQuery(execution(10, 1), List.of(updateQuery()));
+        sampleAll.afterQuery(execution(20, 1), List.of(updateQuery()));
+        assertThat(appender.list).hasSize(2);
+        assertThat(appender.list).extracting(ILoggingEvent::getLevel).containsOnly(Level.INFO);
+        assertThat(appender.list.get(0).getFormattedMessage()).startsWith("[샘플 쿼리] 10ms");
+    }
+
+    @Test
+    public void realQueryWithCaller(){
+        //given
+        memberRepository.save(new Member("slowQuery", 10));
+
+        //when : 기준 시간 0 이므로 모든 sql 이 찍힌다
+        memberRepository.findListByUsername("slowQuery");
+
+        //then : 어느 레포지토리 메소드가 낸 쿼리인지와 파라미터가 함께 남는다
+        assertThat(appender.list).extracting(ILoggingEvent::getFormattedMessage)
+                .anyMatch(message -> message.contains("caller=MemberRepository.findListByUsername")
+                        && message.contains("select")
+                        && message.contains("params=[slowQuery]"));
+    }
+
+    private ExecutionInfo execution(long elapsedMillis, Integer rows) {
+        ExecutionInfo execution = new ExecutionInfo();
+        execution.setElapsedTime(elapsedMillis);
+        execution.setResult(rows);
+        execution.setSuccess(true);
+        return execution;
+    }
+
+    private QueryInfo updateQuery() throws NoSuchMethodException {
+        QueryInfo query = new QueryInfo("update member set age = ? where member_id = ?");
+        query.setParametersList(List.of(List.of(
+                new ParameterSetOperation(PreparedStatement.class.getMethod("setInt", int.class, int.class), new Object[]{1, 11}),
+                new ParameterSetOperation(PreparedStatement.class.getMethod("setLong", int.class, long.class), new Object[]{2, 7L}))));
+        return query;
+    }
+}
@@ -0,0 +1,124 @@
+package spring.datajpa;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring.datajpa.cache.CacheRegionStats;
+import spring.datajpa.cache.SecondLevelCacheMetrics;
+import spring.datajpa.entity.Team;
+import spring.datajpa.repository.TeamRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static spring.datajpa.QueryCountAssertions.assertQueryCount;
+
+// 2차 캐시는 커밋된 값만 담으므로 테스트 트랜잭션 없이 실행하고 끝나면 지운다.
+// findById 는 호출마다 새 영속성 컨텍스트라서 1차 캐시가 아니라 2차 캐시에서 나와야 쿼리가 없다.
+@SpringBootTest
+@AutoConfigureMockMvc
+public class TeamSecondLevelCacheTest {
+
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    SecondLevelCacheMetrics secondLevelCacheMetrics;
+    @Autowired
+    EntityManagerFactory emf;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    MockMvc mockMvc;
+
+    @PersistenceContext
+    EntityManager em;
+
+    Team team;
+
+    @BeforeEach
+    public void setUp(){
+        team = teamRepository.save(new Team("l2Team"));
+        emf.getCache().evict(Team.class); // 저장할 때 들어간 값은 빼고 시작
+    }
+
+    @AfterEach
+    public void cleanUp(){
+        teamRepository.deleteAllInBatch(List.of(team));
+    }
+
+    @Test
+    public void secondReadFromCache(){
+        CacheRegionStats before = secondLevelCacheMetrics.regionStats(SecondLevelCacheMetrics.TEAM_REGION);
+
+        //when : 처음은 db, 두 번째는 2차 캐시
+        assertQueryCount(1, () -> teamRepository.findById(team.getId()));
+        assertQueryCount(0, () ->
+                assertThat(teamRepository.findById(team.getId()).get().getName()).isEqualTo("l2Team"));
+
+        //then
+        CacheRegionStats after = secondLevelCacheMetrics.regionStats(SecondLevelCacheMetrics.TEAM_REGION);
+        assertThat(after.getMissCount() - before.getMissCount()).isEqualTo(1);
+        assertThat(after.getHitCount() - before.getHitCount()).isEqualTo(1);
+        assertThat(after.getPutCount() - before.getPutCount()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    public void updateRefreshesCache(){
+        //given
+        teamRepository.findById(team.getId());
+
+        //when : 엔티티 수정이 커밋되면
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                teamRepository.findById(team.getId()).get().setName("l2Renamed"));
+
+        //then : 다시 읽으면 바뀐 이름
+        assertThat(teamRepository.findById(team.getId()).get().getName()).isEqualTo("l2Renamed");
+    }
+
+    @Test
+    public void bulkUpdateEvictsRegion(){
+        //given : 캐시에 올려 둔다
+        teamRepository.findById(team.getId());
+        assertQueryCount(0, () -> teamRepository.findById(team.getId()));
+
+        //when : 벌크 jpql 은 어떤 엔티티가 바뀌었는지 모르므로 하이버네이트가 리전을 비운다
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                em.createQuery("update Team t set t.name = :name where t.id = :id")
+                        .setParameter("name", "l2Bulk")
+                        .setParameter("id", team.getId())
+                        .executeUpdate());
+
+        //then : db 에서 다시 읽는다
+        assertQueryCount(1, () ->
+                assertThat(teamRepository.findById(team.getId()).get().getName()).isEqualTo("l2Bulk"));
+    }
+
+    @Test
+    public void statsEndpoint() throws Exception {
+        //given : miss 한 번, hit 한 번
+        teamRepository.findById(team.getId());
+        teamRepository.findById(team.getId());
+
+        //when, then
+        mockMvc.perform(get("/stats/cache/team"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].region").value(SecondLevelCacheMetrics.TEAM_REGION))
+                .andExpect(jsonPath("$[0].hitCount").value(greaterThan(0)))
+                .andExpect(jsonPath("$[0].missCount").value(greaterThan(0)))
+                .andExpect(jsonPath("$[0].evictionCount").exists())
+                .andExpect(jsonPath("$[1].region").value(SecondLevelCacheMetrics.TEAM_MEMBERS_REGION));
+    }
+}
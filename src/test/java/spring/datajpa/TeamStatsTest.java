@@ -0,0 +1,131 @@
+package spring.datajpa;
+
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring.datajpa.dto.TeamStatsDto;
+import spring.datajpa.entity.Member;
+import spring.datajpa.entity.Team;
+import spring.datajpa.repository.MemberRepository;
+import spring.datajpa.repository.TeamRepository;
+import spring.datajpa.stats.TeamStatsService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 커밋된 변경만 반영되므로 테스트 트랜잭션(롤백) 없이 직접 커밋한다.
+@SpringBootTest
+public class TeamStatsTest {
+
+    @Autowired
+    TeamStatsService teamStatsService;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    ReconcileInterleaver reconcileInterleaver;
+
+    @Test
+    public void incrementalStats(){
+        //given
+        Team team = teamRepository.save(new Team("statsTeam"));
+        Member member1 = memberRepository.save(new Member("stats1", 10, team));
+        Member member2 = memberRepository.save(new Member("stats2", 20, team));
+
+        TeamStatsDto stats = teamStatsService.teamStats(team.getId());
+        assertThat(stats.getMemberCount()).isEqualTo(2);
+        assertThat(stats.getAgeSum()).isEqualTo(30);
+        assertThat(stats.getAgeMin()).isEqualTo(10);
+        assertThat(stats.getAgeMax()).isEqualTo(20);
+
+        //when : 나이 변경, 롤백된 변경, 삭제
+        transactionTemplate.executeWithoutResult(status ->
+                memberRepository.findById(member1.getId()).get().setAge(15));
+        transactionTemplate.executeWithoutResult(status -> {
+            memberRepository.findById(member2.getId()).get().setAge(99);
+            memberRepository.flush();
+            status.setRollbackOnly();
+        });
+        memberRepository.deleteById(member2.getId());
+
+        //then : 최대값을 가진 회원이 빠져도 조회 시 다시 계산된다
+        stats = teamStatsService.teamStats(team.getId());
+        assertThat(stats.getMemberCount()).isEqualTo(1);
+        assertThat(stats.getAgeSum()).isEqualTo(15);
+        assertThat(stats.getAgeMin()).isEqualTo(15);
+        assertThat(stats.getAgeMax()).isEqualTo(15);
+
+        memberRepository.deleteById(member1.getId());
+        teamRepository.delete(team);
+    }
+
+    @Test
+    public void insertDuringReconcileAll(){
+        //given
+        Team team = teamRepository.save(new Team("statsReconcile"));
+        List<Member> members = new ArrayList<>();
+        members.add(memberRepository.save(new Member("statsReconcile1", 10, team)));
+        assertThat(teamStatsService.teamStats(team.getId()).getMemberCount()).isEqualTo(1);
+
+        //집계 쿼리가 끝난 뒤, 결과로 교체하기 전에 다른 트랜잭션이 회원을 추가하고 커밋한다
+        reconcileInterleaver.afterQuery(() -> CompletableFuture.runAsync(() ->
+                members.add(memberRepository.save(new Member("statsReconcile2", 30, team)))).join());
+
+        try {
+            //when
+            teamStatsService.reconcileAll();
+
+            //then : 집계 결과에 없던 회원도 빠지지 않는다
+            assertThat(members).hasSize(2);
+            TeamStatsDto stats = teamStatsService.teamStats(team.getId());
+            assertThat(stats.getMemberCount()).isEqualTo(2);
+            assertThat(stats.getAgeSum()).isEqualTo(40);
+            assertThat(stats.getAgeMax()).isEqualTo(30);
+            assertThat(teamStatsService.totalStats().getMemberCount()).isEqualTo(memberRepository.count());
+        } finally {
+            reconcileInterleaver.afterQuery(null);
+            memberRepository.deleteAllInBatch(members);
+            teamRepository.delete(team);
+        }
+    }
+
+    // 준비된 동작이 있으면 MemberRepository.findTeamStats() 가 결과를 돌려준 직후에 한 번 실행한다.
+    @Aspect
+    static class ReconcileInterleaver {
+
+        private final AtomicReference<Runnable> action = new AtomicReference<>();
+
+        void afterQuery(Runnable runnable) {
+            action.set(runnable);
+        }
+
+        @AfterReturning("target(spring.datajpa.repository.MemberRepository) && execution(* findTeamStats())")
+        public void interleave() {
+            Runnable runnable = action.getAndSet(null);
+            if (runnable != null) {
+                runnable.run();
+            }
+        }
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        ReconcileInterleaver reconcileInterleaver() {
+            return new ReconcileInterleaver();
+        }
+    }
+}
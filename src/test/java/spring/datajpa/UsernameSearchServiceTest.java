@@ -0,0 +1,182 @@
+package spring.datajpa;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring.datajpa.dto.UsernameMatch;
+import spring.datajpa.entity.Member;
+import spring.datajpa.event.MemberBulkUpdatedEvent;
+import spring.datajpa.repository.MemberRepository;
+import spring.datajpa.search.UsernameIndex;
+import spring.datajpa.search.UsernameSearchService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static spring.datajpa.QueryCountAssertions.assertQueryCount;
+
+// 인덱스는 커밋된 변경만 반영하므로 테스트 트랜잭션 없이 실행하고 끝나면 지운다.
+@SpringBootTest(properties = "datajpa.username-index.enabled=true")
+public class UsernameSearchServiceTest {
+
+    @Autowired
+    UsernameSearchService usernameSearchService;
+    @Autowired
+    UsernameIndex usernameIndex;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    ApplicationEventPublisher publisher;
+    @Autowired
+    RebuildInterleaver rebuildInterleaver;
+
+    List<Member> saved = new ArrayList<>();
+
+    @AfterEach
+    public void cleanUp(){
+        memberRepository.deleteAllInBatch(saved);
+    }
+
+    @Test
+    public void prefixSearchAndLimit(){
+        //given
+        Member alpha2 = save("idxAlpha2");
+        Member alpha1 = save("idxAlpha1");
+        save("idxBeta");
+
+        //when, then : 메모리 인덱스에서 username 순으로 (쿼리 없음)
+        assertThat(usernameIndex.isReady()).isTrue();
+        assertQueryCount(0, () -> {
+            List<UsernameMatch> result = usernameSearchService.searchByPrefix("idxAlpha", 10);
+            assertThat(result).extracting("id").containsExactly(alpha1.getId(), alpha2.getId());
+        });
+        assertThat(usernameSearchService.searchByPrefix("idxAlpha", 1)).extracting("username").containsExactly("idxAlpha1");
+        assertThat(usernameSearchService.searchByPrefix("idx", 10)).hasSize(3);
+    }
+
+    @Test
+    public void syncInsertUpdateDelete(){
+        //insert
+        Member member = save("idxSyncOld");
+        assertThat(usernameIndex.search("idxSync", 10)).extracting("username").containsExactly("idxSyncOld");
+
+        //update : 옛 이름은 빠지고 새 이름으로
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                memberRepository.findById(member.getId()).get().setUsername("idxSyncNew"));
+        assertThat(usernameIndex.search("idxSync", 10)).extracting("username").containsExactly("idxSyncNew");
+
+        //delete
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                memberRepository.delete(memberRepository.findById(member.getId()).get()));
+        assertThat(usernameIndex.search("idxSync", 10)).isEmpty();
+    }
+
+    @Test
+    public void dbFallbackBeforeReady(){
+        //given : 아직 적재하지 않은 인덱스
+        Member member = save("idxFallback");
+        UsernameSearchService service = notReadyService();
+
+        //when, then : db 로 조회
+        assertQueryCount(1, () ->
+                assertThat(service.searchByPrefix("idxFallback", 10)).extracting("id").containsExactly(member.getId()));
+    }
+
+    @Test
+    public void likeEscape(){
+        //given
+        Member percent = save("esc%a");
+        Member underscore = save("esc_b");
+        save("escXb");
+        UsernameSearchService service = notReadyService();
+
+        //when, then : % 와 _ 는 와일드카드가 아니라 글자로
+        assertThat(service.searchByPrefix("esc%", 10)).extracting("id").containsExactly(percent.getId());
+        assertThat(service.searchByPrefix("esc_", 10)).extracting("id").containsExactly(underscore.getId());
+        assertThat(usernameSearchService.searchByPrefix("esc_", 10)).extracting("id").containsExactly(underscore.getId());
+    }
+
+    @Test
+    public void changesDuringRebuildAreKept(){
+        //given : 다시 만드는 도중(첫 row 를 읽은 직후) 다른 스레드에서 한 명 지우고 한 명 추가해서 커밋한다
+        Member gone = save("idxRebuildGone");
+        List<Member> added = new ArrayList<>();
+        rebuildInterleaver.onFirstRow(() -> CompletableFuture.runAsync(() -> {
+            memberRepository.deleteById(gone.getId());
+            added.add(memberRepository.save(new Member("idxRebuildNew", 10)));
+        }).join());
+
+        try {
+            //when : 벌크 삭제 후처럼 인덱스를 다시 만든다
+            publisher.publishEvent(new MemberBulkUpdatedEvent("test", true));
+
+            //then : 스트림에 보였든 안 보였든 두 변경이 새 인덱스에 남는다
+            assertThat(added).hasSize(1);
+            assertThat(usernameIndex.search("idxRebuild", 10)).extracting("id").containsExactly(added.get(0).getId());
+        } finally {
+            rebuildInterleaver.onFirstRow(null);
+            saved.addAll(added);
+        }
+    }
+
+    private UsernameSearchService notReadyService() {
+        UsernameIndex notReady = new UsernameIndex(memberRepository, transactionManager);
+        assertThat(notReady.isReady()).isFalse();
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("usernameIndex", notReady));
+        return new UsernameSearchService(memberRepository, beanFactory.getBeanProvider(UsernameIndex.class));
+    }
+
+    private Member save(String username) {
+        Member member = memberRepository.save(new Member(username, 10));
+        saved.add(member);
+        return member;
+    }
+
+    // 준비된 동작이 있으면 MemberRepository.streamUsernames 의 첫 row 를 읽은 직후에 한 번 실행한다.
+    @Aspect
+    static class RebuildInterleaver {
+
+        private final AtomicReference<Runnable> action = new AtomicReference<>();
+
+        void onFirstRow(Runnable runnable) {
+            action.set(runnable);
+        }
+
+        @Around("target(spring.datajpa.repository.MemberRepository) && execution(* streamUsernames(..))")
+        public Object interleave(ProceedingJoinPoint joinPoint) throws Throwable {
+            Stream<?> stream = (Stream<?>) joinPoint.proceed();
+            return stream.peek(row -> {
+                Runnable runnable = action.getAndSet(null);
+                if (runnable != null) {
+                    runnable.run();
+                }
+            });
+        }
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        RebuildInterleaver rebuildInterleaver() {
+            return new RebuildInterleaver();
+        }
+    }
+}